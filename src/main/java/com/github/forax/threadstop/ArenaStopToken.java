@@ -0,0 +1,41 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+final class ArenaStopToken implements StopToken {
+  private final Arena arena;
+  final MemorySegment.Scope scope;
+
+  ArenaStopToken() {
+    var arena = Arena.ofShared();
+    this.arena = arena;
+    this.scope = arena.scope();
+    super();
+  }
+
+  @Override
+  public boolean isStopRequested() {
+    return !scope.isAlive();
+  }
+
+  @Override
+  public void requestStop() {
+    close(arena, scope);
+  }
+
+  // closing a shared arena is already thread safe, only the exception if already closed is an issue
+  static void close(Arena arena, MemorySegment.Scope scope) {
+    if (!scope.isAlive()) {
+      return;
+    }
+    try {
+      arena.close();
+    } catch (IllegalStateException e) {
+      if (scope.isAlive()) {
+        throw e;
+      }
+      // already closed by another thread
+    }
+  }
+}
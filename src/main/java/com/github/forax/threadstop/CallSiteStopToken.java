@@ -0,0 +1,32 @@
+package com.github.forax.threadstop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+
+// a record so the fields are trusted as constant by the JIT when the token is a constant
+record CallSiteStopToken(MutableCallSite callSite, MethodHandle invoker) implements StopToken {
+  static CallSiteStopToken create() {
+    var callSite = new MutableCallSite(MethodType.methodType(boolean.class));
+    callSite.setTarget(MethodHandles.constant(boolean.class, false));
+    return new CallSiteStopToken(callSite, callSite.dynamicInvoker());
+  }
+
+  @Override
+  public boolean isStopRequested() {
+    try {
+      return (boolean) invoker.invokeExact();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Override
+  public void requestStop() {
+    callSite.setTarget(MethodHandles.constant(boolean.class, true));
+    MutableCallSite.syncAll(new MutableCallSite[] { callSite });
+  }
+}
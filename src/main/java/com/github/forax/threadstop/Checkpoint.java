@@ -0,0 +1,57 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * A stop-and-yield check for a compute loop.
+ *
+ * With virtual threads, a loop that never blocks keeps its carrier thread until the end of the loop.
+ * {@link #check()} stops the loop if the stop token is stopped and yields the carrier thread
+ * when the time slice given by the {@link CheckpointScheduler} is elapsed.
+ * The common path is only the liveness test of the scope of the current time slice,
+ * the stop token is checked at the end of each time slice, so a stop is seen
+ * after at most one time slice.
+ * Once the scheduler is closed, a checkpoint does not yield anymore and checks the stop token at each call.
+ * <pre>
+ * var checkpoint = scheduler.newCheckpoint(token);
+ * for(var i = 0; i &lt; array.length; i++) {
+ *   checkpoint.check();
+ *   // ...
+ * }
+ * </pre>
+ * A checkpoint should only be used by one thread.
+ */
+public final class Checkpoint {
+  private final CheckpointScheduler scheduler;
+  private final StopToken token;
+  private MemorySegment.Scope epochScope;
+
+  Checkpoint(CheckpointScheduler scheduler, StopToken token) {
+    this.scheduler = scheduler;
+    this.token = token;
+    this.epochScope = scheduler.epochScope();
+    super();
+  }
+
+  /**
+   * Checks if the loop should stop or yield.
+   * @throws StoppedException if the stop token is stopped.
+   */
+  public void check() {
+    if (!epochScope.isAlive()) {
+      endOfTimeSlice();  // slow path
+    }
+  }
+
+  private void endOfTimeSlice() {
+    if (token.isStopRequested()) {
+      throw new StoppedException();
+    }
+    if (scheduler.isClosed()) {
+      // no more time slice, the scope of the epoch stays closed, so the token is checked at each call
+      return;
+    }
+    Thread.yield();
+    epochScope = scheduler.epochScope();
+  }
+}
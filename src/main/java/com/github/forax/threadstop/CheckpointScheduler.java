@@ -0,0 +1,102 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gives the time slices of the {@link Checkpoint}s.
+ *
+ * A daemon thread (the ticker) closes a shared arena (the epoch) at the end of each time slice
+ * and replaces it by a new one, so a checkpoint only tests the liveness of the scope of the epoch
+ * in the hot loop, the same check as {@link StopToken#ofArena()}.
+ * All the checkpoints share the same epoch, so there is one handshake per time slice
+ * whatever the number of checkpoints.
+ */
+public final class CheckpointScheduler implements AutoCloseable {
+  private static final VarHandle CLOSED;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      CLOSED = lookup.findVarHandle(CheckpointScheduler.class, "closed", boolean.class);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private final long timeSliceNanos;
+  private final Thread ticker;
+  private volatile Arena epoch;
+  private volatile boolean closed;
+
+  public CheckpointScheduler(Duration timeSlice) {
+    Objects.requireNonNull(timeSlice);
+    if (timeSlice.isNegative() || timeSlice.isZero()) {
+      throw new IllegalArgumentException("timeSlice <= 0");
+    }
+    this.timeSliceNanos = timeSlice.toNanos();
+    this.epoch = Arena.ofShared();
+    super();
+    this.ticker = Thread.ofPlatform().daemon().name("checkpoint-ticker").start(this::tick);
+  }
+
+  private void tick() {
+    while(!closed) {
+      LockSupport.parkNanos(timeSliceNanos);
+      var oldEpoch = epoch;
+      epoch = Arena.ofShared();
+      oldEpoch.close();  // the checkpoints see the new epoch when they reload it
+    }
+  }
+
+  // the scope of the current time slice
+  MemorySegment.Scope epochScope() {
+    return epoch.scope();
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Creates a checkpoint for the current thread.
+   * @param token the stop token checked when the time slice ends.
+   * @return a new checkpoint.
+   */
+  public Checkpoint newCheckpoint(StopToken token) {
+    Objects.requireNonNull(token);
+    return new Checkpoint(this, token);
+  }
+
+  /**
+   * Stops the ticker, the checkpoints will not yield anymore
+   * but they check their stop token at each call.
+   */
+  @Override
+  public void close() {
+    // only one thread does the shutdown
+    if (!CLOSED.compareAndSet(this, false, true)) {
+      return;
+    }
+    LockSupport.unpark(ticker);
+    var interrupted = false;
+    for(;;) {
+      try {
+        ticker.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    // the last epoch is closed, so the checkpoints go to the slow path and see the closed state
+    var epoch = this.epoch;
+    ArenaStopToken.close(epoch, epoch.scope());
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
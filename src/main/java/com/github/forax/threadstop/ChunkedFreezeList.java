@@ -0,0 +1,122 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.MemorySegment;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A FreezeList that stores the elements in fixed-size chunks.
+ *
+ * Growing the list adds a new chunk, the elements are never copied,
+ * so there is no latency spike when the list grows (only the small array of chunks is copied).
+ * {@link #compact()} freezes the list and copies the elements into one array.
+ */
+public final class ChunkedFreezeList<E> extends AbstractList<E> implements RandomAccess {
+  private static final int CHUNK_SHIFT = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private E[][] chunks;
+  private int size;
+  private final Thread ownerThread;
+  private final Freezer freezer;
+  private final MemorySegment.Scope scope;
+
+  public ChunkedFreezeList() {
+    var freezer = new Freezer();
+    @SuppressWarnings("unchecked")
+    var chunks = (E[][]) new Object[16][];
+    this.chunks = chunks;
+    this.ownerThread = Thread.currentThread();
+    this.freezer = freezer;
+    this.scope = freezer.scope;
+    super();
+  }
+
+  public void freeze() {
+    freezer.freeze();
+  }
+
+  /**
+   * Freezes the list and returns a frozen list backed by one array.
+   * @return a frozen list containing the elements of this list.
+   */
+  public FrozenList<E> compact() {
+    freeze();
+    @SuppressWarnings("unchecked")
+    var array = (E[]) new Object[size];
+    for(var i = 0; i < size; i += CHUNK_SIZE) {
+      System.arraycopy(chunks[i >>> CHUNK_SHIFT], 0, array, i, Math.min(CHUNK_SIZE, size - i));
+    }
+    return new FrozenList<>(array, size);
+  }
+
+  @Override
+  public int size() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return size;
+  }
+
+  @Override
+  public E get(int index) {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    Objects.checkIndex(index, size);
+    return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+  }
+
+  private void addChunk() {
+    var chunkIndex = size >>> CHUNK_SHIFT;
+    if (chunkIndex == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunkIndex * 2);
+    }
+    @SuppressWarnings("unchecked")
+    var chunk = (E[]) new Object[CHUNK_SIZE];
+    chunks[chunkIndex] = chunk;
+  }
+
+  @Override
+  @Scoped
+  public boolean add(E element) {
+    Objects.requireNonNull(element);
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    if (size == Integer.MAX_VALUE) {
+      throw new IllegalStateException("list is full");
+    }
+    // modifications thus the method has to be @Scoped
+    if ((size & CHUNK_MASK) == 0) {
+      addChunk();  // slow path
+    }
+    chunks[size >>> CHUNK_SHIFT][size & CHUNK_MASK] = element;
+    size++;
+    return true;
+  }
+
+  @Override
+  @Scoped
+  public E set(int index, E element) {
+    Objects.requireNonNull(element);
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    Objects.checkIndex(index, size);
+    var chunk = chunks[index >>> CHUNK_SHIFT];
+    var oldElement = chunk[index & CHUNK_MASK];
+    // modifications thus the method has to be @Scoped
+    chunk[index & CHUNK_MASK] = element;
+    return oldElement;
+  }
+}
@@ -0,0 +1,122 @@
+package com.github.forax.threadstop;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Creates stop tokens that are stopped when their deadline is reached.
+ *
+ * The time is divided in ticks, the tokens with a deadline in the same tick are tokens
+ * of the same {@link StopCohort}, so all the tokens of a tick are stopped with only one close
+ * (one handshake). The cohorts are stored in a hash table indexed by tick (a hashed timer wheel)
+ * and a single daemon thread (the ticker) stops the cohort of each tick when the tick is elapsed,
+ * so there is no thread nor scheduled task per deadline.
+ * A deadline is rounded up to the next tick, a token is never stopped before its deadline.
+ */
+public final class DeadlineScheduler implements AutoCloseable {
+  private final long tickNanos;
+  private final long origin;
+  private final ConcurrentHashMap<Long, StopCohort> cohorts = new ConcurrentHashMap<>();
+  private final Thread ticker;
+  private volatile long lastExpiredTick;
+  private volatile boolean closed;
+
+  public DeadlineScheduler(Duration tick) {
+    Objects.requireNonNull(tick);
+    if (tick.isNegative() || tick.isZero()) {
+      throw new IllegalArgumentException("tick <= 0");
+    }
+    this.tickNanos = tick.toNanos();
+    this.origin = System.nanoTime();
+    super();
+    this.ticker = Thread.ofPlatform().daemon().name("deadline-ticker").start(this::tick);
+  }
+
+  private void tick() {
+    while(!closed) {
+      var now = System.nanoTime() - origin;
+      var currentTick = now / tickNanos;
+      for(var tick = lastExpiredTick + 1; tick <= currentTick; tick++) {
+        expire(tick);
+      }
+      LockSupport.parkNanos((currentTick + 1) * tickNanos - now);
+    }
+  }
+
+  private void expire(long tick) {
+    // the tick is marked as expired before the cohort is removed, see newToken()
+    lastExpiredTick = tick;
+    var cohort = cohorts.remove(tick);
+    if (cohort != null) {
+      cohort.requestStop();
+    }
+  }
+
+  /**
+   * Creates a stop token stopped after a timeout.
+   * The token can also be stopped before its deadline by calling {@link StopToken#requestStop()}.
+   *
+   * @param timeout the timeout, if the timeout is zero or negative the token is already stopped.
+   * @return a new stop token.
+   * @throws IllegalStateException if the scheduler is closed.
+   */
+  public StopToken newToken(Duration timeout) {
+    Objects.requireNonNull(timeout);
+    if (closed) {
+      throw new IllegalStateException("scheduler is closed");
+    }
+    if (timeout.isNegative() || timeout.isZero()) {
+      // the deadline is already reached, no need to wait for the ticker
+      var token = StopToken.ofArena();
+      token.requestStop();
+      return token;
+    }
+    var deadline = System.nanoTime() - origin + timeout.toNanos();
+    var tick = Math.ceilDiv(deadline, tickNanos);
+    var cohort = cohorts.computeIfAbsent(tick, _ -> new StopCohort());
+    var token = cohort.newToken();
+    if (tick <= lastExpiredTick) {
+      // the tick has expired, the ticker may have removed the cohort before it was added
+      cohorts.remove(tick, cohort);
+      cohort.requestStop();
+    }
+    return token;
+  }
+
+  /**
+   * Stops the ticker and stops all the tokens not yet stopped.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    LockSupport.unpark(ticker);
+    var interrupted = false;
+    for(;;) {
+      try {
+        ticker.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    expireAll();
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void expireAll() {
+    lastExpiredTick = Long.MAX_VALUE;
+    for(var tick : cohorts.keySet()) {
+      var cohort = cohorts.remove(tick);
+      if (cohort != null) {
+        cohort.requestStop();
+      }
+    }
+  }
+}
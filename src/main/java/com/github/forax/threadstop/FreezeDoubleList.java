@@ -0,0 +1,104 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.Objects;
+
+// a FreezeList of doubles, see FreezeList
+public final class FreezeDoubleList {
+  private double[] elements;
+  private int size;
+  private final Thread ownerThread;
+  private final Freezer freezer;
+  private final MemorySegment.Scope scope;
+
+  public FreezeDoubleList() {
+    var freezer = new Freezer();
+    this.elements = new double[16];
+    this.ownerThread = Thread.currentThread();
+    this.freezer = freezer;
+    this.scope = freezer.scope;
+    super();
+  }
+
+  public void freeze() {
+    freezer.freeze();
+  }
+
+  public int size() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return size;
+  }
+
+  public double get(int index) {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    Objects.checkIndex(index, size);
+    return elements[index];
+  }
+
+  private void resize() {
+    elements = Arrays.copyOf(elements, size * 2);
+  }
+
+  @Scoped
+  public void add(double element) {
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    // modifications thus the method has to be @Scoped
+    if (elements.length == size) {
+      resize();  // slow path
+    }
+    elements[size++] = element;
+  }
+
+  @Scoped
+  public double set(int index, double element) {
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    Objects.checkIndex(index, size);
+    var oldElement = elements[index];
+    // modifications thus the method has to be @Scoped
+    elements[index] = element;
+    return oldElement;
+  }
+
+  public double[] toArray() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return Arrays.copyOf(elements, size);
+  }
+
+  /**
+   * Freezes the list and returns a read-only view of the elements,
+   * the view can be read by any thread without boxing the elements.
+   * @return a read-only memory segment of the elements.
+   */
+  public MemorySegment asSegment() {
+    freeze();
+    return MemorySegment.ofArray(elements)
+        .asSlice(0, size * ValueLayout.JAVA_DOUBLE.byteSize())
+        .asReadOnly();
+  }
+
+  @Override
+  public String toString() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return Arrays.toString(Arrays.copyOf(elements, size));
+  }
+}
@@ -0,0 +1,104 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.Objects;
+
+// a FreezeList of ints, see FreezeList
+public final class FreezeIntList {
+  private int[] elements;
+  private int size;
+  private final Thread ownerThread;
+  private final Freezer freezer;
+  private final MemorySegment.Scope scope;
+
+  public FreezeIntList() {
+    var freezer = new Freezer();
+    this.elements = new int[16];
+    this.ownerThread = Thread.currentThread();
+    this.freezer = freezer;
+    this.scope = freezer.scope;
+    super();
+  }
+
+  public void freeze() {
+    freezer.freeze();
+  }
+
+  public int size() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return size;
+  }
+
+  public int get(int index) {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    Objects.checkIndex(index, size);
+    return elements[index];
+  }
+
+  private void resize() {
+    elements = Arrays.copyOf(elements, size * 2);
+  }
+
+  @Scoped
+  public void add(int element) {
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    // modifications thus the method has to be @Scoped
+    if (elements.length == size) {
+      resize();  // slow path
+    }
+    elements[size++] = element;
+  }
+
+  @Scoped
+  public int set(int index, int element) {
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    Objects.checkIndex(index, size);
+    var oldElement = elements[index];
+    // modifications thus the method has to be @Scoped
+    elements[index] = element;
+    return oldElement;
+  }
+
+  public int[] toArray() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return Arrays.copyOf(elements, size);
+  }
+
+  /**
+   * Freezes the list and returns a read-only view of the elements,
+   * the view can be read by any thread without boxing the elements.
+   * @return a read-only memory segment of the elements.
+   */
+  public MemorySegment asSegment() {
+    freeze();
+    return MemorySegment.ofArray(elements)
+        .asSlice(0, size * ValueLayout.JAVA_INT.byteSize())
+        .asReadOnly();
+  }
+
+  @Override
+  public String toString() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return Arrays.toString(Arrays.copyOf(elements, size));
+  }
+}
@@ -1,54 +1,49 @@
 package com.github.forax.threadstop;
 
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 public final class FreezeList<E> extends AbstractList<E> implements RandomAccess {
   private E[] elements;
   private int size;
   private final Thread ownerThread;
-  private final Arena arena;
+  private final Freezer freezer;
   private final MemorySegment.Scope scope;
 
-  // see jdk.internal.misc.ScopeMemoryAccess.Scoped
-  @Target({ElementType.METHOD, ElementType.CONSTRUCTOR})
-  @Retention(RetentionPolicy.RUNTIME)
-  @interface Scoped { }
-
   public FreezeList() {
-    var arena = Arena.ofShared();
-    var scope = arena.scope();
+    var freezer = new Freezer();
     @SuppressWarnings("unchecked")
     var elements = (E[]) new Object[16];
     this.elements = elements;
     this.ownerThread = Thread.currentThread();
-    this.arena = arena;
-    this.scope = scope;
+    this.freezer = freezer;
+    this.scope = freezer.scope;
     super();
   }
 
   public void freeze() {
-    synchronized (arena) {
-      // double check locking pattern !!
-      if (!scope.isAlive()) {
-        return;
-      }
-      try {
-        arena.close();
-      } catch (IllegalStateException e) {
-        throw new IllegalStateException("owner thread can still do mutations", e);
-      }
-    }
+    freezer.freeze();
+  }
+
+  /**
+   * Freezes the list and returns a view of the elements that does not check
+   * the owner thread nor the frozen state when accessed.
+   * @return an unmodifiable view of this list.
+   */
+  public FrozenList<E> frozenView() {
+    freeze();
+    return new FrozenList<>(elements, size);
   }
 
   @Override
@@ -107,12 +102,166 @@ public final class FreezeList<E> extends AbstractList<E> implements RandomAccess
     return oldElement;
   }
 
+  // bulk operations, the ownership and the frozen state are checked once per call
+
+  @Override
+  public boolean addAll(Collection<? extends E> collection) {
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    // the collection is copied outside the @Scoped method, it may run arbitrary code
+    var array = collection.toArray();
+    for(var element : array) {
+      Objects.requireNonNull(element);
+    }
+    return addArray(array);
+  }
+
+  @Scoped
+  private boolean addArray(Object[] array) {
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    if (array.length == 0) {
+      return false;
+    }
+    var newSize = Math.addExact(size, array.length);
+    // modifications thus the method has to be @Scoped
+    if (elements.length < newSize) {
+      elements = Arrays.copyOf(elements, Math.max(newSize, size * 2));  // slow path
+    }
+    System.arraycopy(array, 0, elements, size, array.length);
+    size = newSize;
+    return true;
+  }
+
+  @Override
+  public void replaceAll(UnaryOperator<E> operator) {
+    Objects.requireNonNull(operator);
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    // the operator may run arbitrary code, so it is applied to a copy outside the @Scoped method
+    var array = Arrays.copyOf(elements, size);
+    for(var i = 0; i < array.length; i++) {
+      array[i] = Objects.requireNonNull(operator.apply(array[i]));
+    }
+    copyBack(array);
+  }
+
+  @Override
+  public void sort(Comparator<? super E> comparator) {
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    // the comparator may run arbitrary code, so a copy is sorted outside the @Scoped method
+    var array = Arrays.copyOf(elements, size);
+    Arrays.sort(array, comparator);
+    copyBack(array);
+  }
+
+  @Scoped
+  private void copyBack(E[] array) {
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    // modifications thus the method has to be @Scoped
+    System.arraycopy(array, 0, elements, 0, array.length);
+  }
+
+  @Override
+  public Object[] toArray() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return Arrays.copyOf(elements, size, Object[].class);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T[] toArray(T[] array) {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    var size = this.size;
+    if (array.length < size) {
+      return (T[]) Arrays.copyOf(elements, size, array.getClass());
+    }
+    System.arraycopy(elements, 0, array, 0, size);
+    if (array.length > size) {
+      array[size] = null;
+    }
+    return array;
+  }
+
+  @Override
+  public void forEach(Consumer<? super E> action) {
+    Objects.requireNonNull(action);
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    var elements = this.elements;
+    var size = this.size;
+    for(var i = 0; i < size; i++) {
+      action.accept(elements[i]);
+    }
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    if (o == null) {  // null is not a valid element
+      return -1;
+    }
+    var elements = this.elements;
+    for(var i = 0; i < size; i++) {
+      if (o.equals(elements[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    if (o == null) {  // null is not a valid element
+      return -1;
+    }
+    var elements = this.elements;
+    for(var i = size; --i >= 0;) {
+      if (o.equals(elements[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(o) != -1;
+  }
+
   @Override
   public Iterator<E> iterator() {
     var currentThread = Thread.currentThread();
     if (ownerThread != currentThread && scope.isAlive()) {
       freeze();
     }
+    if (!scope.isAlive()) {
+      // the list is frozen, the iterator can be used by any thread
+      return new FrozenList<>(elements, size).iterator();
+    }
     var size = this.size;
     var elements = this.elements;
     return new Iterator<>() {
@@ -138,4 +287,16 @@ public final class FreezeList<E> extends AbstractList<E> implements RandomAccess
       }
     };
   }
+
+  @Override
+  public Spliterator<E> spliterator() {
+    if (ownerThread == Thread.currentThread() && scope.isAlive()) {
+      return super.spliterator();
+    }
+    // a frozen list is immutable, so the spliterator can split the array evenly
+    if (scope.isAlive()) {
+      freeze();
+    }
+    return Spliterators.spliterator(elements, 0, size, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+  }
 }
@@ -0,0 +1,272 @@
+package com.github.forax.threadstop;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * A FreezeList of fixed-layout records stored off-heap.
+ *
+ * The owner thread appends records, the records are copied into chunks of memory
+ * allocated from a shared arena (the data arena).
+ * Once frozen, the records are read-only and can be read by any thread.
+ * The memory is not freed by the freeze but by {@link #release()} (or {@link #close()}),
+ * so the data arena controls the lifetime of the memory while the arena used as frozen flag
+ * controls the mutations.
+ *
+ * A frozen list can be saved to a file with {@link #save(Path)} and mapped back in memory
+ * with {@link #map(Path, MemoryLayout)}, the records are not deserialized.
+ */
+public final class FreezeSegmentList implements AutoCloseable {
+  // the memory is allocated by chunks, so growing never copies the records
+  private static final int CHUNK_SHIFT = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  // file format: a header followed by the records in native byte order,
+  // the header is large enough to keep the records aligned
+  private static final int MAGIC = 0x465A534C;  // "FZSL", also detects a different byte order
+  private static final int VERSION = 1;
+  private static final long HEADER_SIZE = 64;
+  private static final long MAGIC_OFFSET = 0;
+  private static final long VERSION_OFFSET = 4;
+  private static final long RECORD_SIZE_OFFSET = 8;
+  private static final long COUNT_OFFSET = 16;
+
+  private final MemoryLayout layout;
+  private final long recordSize;
+  private final Arena dataArena;
+  private MemorySegment[] chunks;
+  private long size;
+  private final Thread ownerThread;
+  private final Freezer freezer;
+  private final MemorySegment.Scope scope;
+
+  public FreezeSegmentList(MemoryLayout layout) {
+    this(checkLayout(layout), Arena.ofShared(), new MemorySegment[16], 0);
+  }
+
+  private FreezeSegmentList(MemoryLayout layout, Arena dataArena, MemorySegment[] chunks, long size) {
+    var freezer = new Freezer();
+    this.layout = layout;
+    this.recordSize = layout.byteSize();
+    this.dataArena = dataArena;
+    this.chunks = chunks;
+    this.size = size;
+    this.ownerThread = Thread.currentThread();
+    this.freezer = freezer;
+    this.scope = freezer.scope;
+    super();
+  }
+
+  private static MemoryLayout checkLayout(MemoryLayout layout) {
+    Objects.requireNonNull(layout);
+    if (layout.byteSize() == 0) {
+      throw new IllegalArgumentException("empty layout " + layout);
+    }
+    return layout;
+  }
+
+  /**
+   * Maps a file written by {@link #save(Path)} in memory and returns it as a frozen list.
+   * The file is unmapped by {@link #release()} (or {@link #close()}).
+   *
+   * @param path the path of the file.
+   * @param layout the layout of the records, the size must be the same as the one used to save the file.
+   * @return a frozen list of the records of the file.
+   * @throws IOException if an I/O error occurs or if the file is not a valid file.
+   */
+  public static FreezeSegmentList map(Path path, MemoryLayout layout) throws IOException {
+    Objects.requireNonNull(path);
+    checkLayout(layout);
+    if (layout.byteAlignment() > HEADER_SIZE) {
+      throw new IllegalArgumentException("alignment of the layout too big " + layout);
+    }
+    var recordSize = layout.byteSize();
+    var dataArena = Arena.ofShared();
+    try(var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      var fileSize = channel.size();
+      if (fileSize < HEADER_SIZE) {
+        throw new IOException("invalid file " + path + ", no header");
+      }
+      var segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize, dataArena);
+      if (segment.get(JAVA_INT, MAGIC_OFFSET) != MAGIC) {
+        throw new IOException("invalid file " + path + ", wrong magic number");
+      }
+      if (segment.get(JAVA_INT, VERSION_OFFSET) != VERSION) {
+        throw new IOException("invalid file " + path + ", unknown version " + segment.get(JAVA_INT, VERSION_OFFSET));
+      }
+      if (segment.get(JAVA_LONG, RECORD_SIZE_OFFSET) != recordSize) {
+        throw new IOException("invalid file " + path + ", wrong record size " + segment.get(JAVA_LONG, RECORD_SIZE_OFFSET));
+      }
+      var size = segment.get(JAVA_LONG, COUNT_OFFSET);
+      if (size < 0 || size > (fileSize - HEADER_SIZE) / recordSize || HEADER_SIZE + size * recordSize != fileSize) {
+        throw new IOException("invalid file " + path + ", wrong number of records " + size);
+      }
+      // the mapped memory is sliced in chunks, so get() is the same as for a list created in memory
+      var data = segment.asSlice(HEADER_SIZE).asReadOnly();
+      var chunkByteSize = CHUNK_SIZE * recordSize;
+      var chunks = new MemorySegment[(int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+      for(var i = 0; i < chunks.length; i++) {
+        var offset = i * chunkByteSize;
+        chunks[i] = data.asSlice(offset, Math.min(chunkByteSize, data.byteSize() - offset));
+      }
+      var list = new FreezeSegmentList(layout, dataArena, chunks, size);
+      list.freeze();
+      return list;
+    } catch (IOException | RuntimeException e) {
+      dataArena.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Freezes the list and writes the records to a file.
+   * @param path the path of the file, the file is created or replaced.
+   * @throws IOException if an I/O error occurs.
+   * @see #map(Path, MemoryLayout)
+   */
+  public void save(Path path) throws IOException {
+    Objects.requireNonNull(path);
+    freeze();
+    try(var arena = Arena.ofConfined();
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      var header = arena.allocate(HEADER_SIZE);
+      header.set(JAVA_INT, MAGIC_OFFSET, MAGIC);
+      header.set(JAVA_INT, VERSION_OFFSET, VERSION);
+      header.set(JAVA_LONG, RECORD_SIZE_OFFSET, recordSize);
+      header.set(JAVA_LONG, COUNT_OFFSET, size);
+      write(channel, header);
+      var remaining = size * recordSize;
+      for(var i = 0; remaining > 0; i++) {
+        var chunk = chunks[i];
+        var byteSize = Math.min(chunk.byteSize(), remaining);
+        write(channel, chunk.asSlice(0, byteSize));
+        remaining -= byteSize;
+      }
+    }
+  }
+
+  private static void write(FileChannel channel, MemorySegment segment) throws IOException {
+    // a ByteBuffer is limited to 2G
+    for(var offset = 0L; offset < segment.byteSize(); offset += Integer.MAX_VALUE) {
+      var buffer = segment.asSlice(offset, Math.min(Integer.MAX_VALUE, segment.byteSize() - offset)).asByteBuffer();
+      while(buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  public MemoryLayout layout() {
+    return layout;
+  }
+
+  public void freeze() {
+    freezer.freeze();
+  }
+
+  public boolean isFrozen() {
+    return !scope.isAlive();
+  }
+
+  /**
+   * Frees the memory of the records, the list must be frozen.
+   * After this call, reading a record throws an {@link IllegalStateException}.
+   *
+   * @throws IllegalStateException if the list is not frozen.
+   */
+  public void release() {
+    if (scope.isAlive()) {
+      throw new IllegalStateException("list is not frozen");
+    }
+    ArenaStopToken.close(dataArena, dataArena.scope());
+  }
+
+  /**
+   * Freezes the list and frees the memory of the records.
+   */
+  @Override
+  public void close() {
+    freeze();
+    release();
+  }
+
+  public long size() {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    return size;
+  }
+
+  private MemorySegment record(long index) {
+    var chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+    return chunk.asSlice((index & CHUNK_MASK) * recordSize, recordSize);
+  }
+
+  /**
+   * Returns a read-only segment of the record at index.
+   * @param index the index of the record.
+   * @return a read-only segment of the record.
+   */
+  public MemorySegment get(long index) {
+    if (ownerThread != Thread.currentThread() && scope.isAlive()) {
+      freeze();
+    }
+    Objects.checkIndex(index, size);
+    return record(index).asReadOnly();
+  }
+
+  private void addChunk() {
+    var chunkIndex = (int) (size >>> CHUNK_SHIFT);
+    if (chunkIndex == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunkIndex * 2);
+    }
+    chunks[chunkIndex] = dataArena.allocate(MemoryLayout.sequenceLayout(CHUNK_SIZE, layout));
+  }
+
+  @Scoped
+  public void add(MemorySegment record) {
+    Objects.requireNonNull(record);
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    if (record.byteSize() != recordSize) {
+      throw new IllegalArgumentException("invalid record size " + record.byteSize());
+    }
+    if ((size & CHUNK_MASK) == 0) {
+      addChunk();  // slow path
+    }
+    // modifications thus the method has to be @Scoped
+    MemorySegment.copy(record, 0, record(size), 0, recordSize);
+    size++;
+  }
+
+  @Scoped
+  public void set(long index, MemorySegment record) {
+    Objects.requireNonNull(record);
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    if (record.byteSize() != recordSize) {
+      throw new IllegalArgumentException("invalid record size " + record.byteSize());
+    }
+    Objects.checkIndex(index, size);
+    // modifications thus the method has to be @Scoped
+    MemorySegment.copy(record, 0, record(index), 0, recordSize);
+  }
+}
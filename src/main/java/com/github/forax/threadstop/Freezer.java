@@ -0,0 +1,62 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// The frozen flag of the freeze lists, a list is frozen when the arena is closed.
+// The transition is a CAS, only one thread closes the arena (and does the handshake),
+// the other threads wait until the arena is closed.
+final class Freezer {
+  private static final int ALIVE = 0;
+  private static final int FREEZING = 1;
+  private static final int FROZEN = 2;
+
+  private static final VarHandle STATE;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      STATE = lookup.findVarHandle(Freezer.class, "state", int.class);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private final Arena arena;
+  final MemorySegment.Scope scope;
+  private volatile int state;
+
+  Freezer() {
+    var arena = Arena.ofShared();
+    this.arena = arena;
+    this.scope = arena.scope();
+    super();
+  }
+
+  void freeze() {
+    for(;;) {
+      switch (state) {
+        case FROZEN -> {
+          return;
+        }
+        case ALIVE -> {
+          if (STATE.compareAndSet(this, ALIVE, FREEZING)) {
+            try {
+              arena.close();
+            } catch (IllegalStateException e) {
+              throw new IllegalStateException("owner thread can still do mutations", e);
+            } finally {
+              // whatever the outcome of close(), the state never stays FREEZING,
+              // if the arena is still alive, another thread may retry
+              state = scope.isAlive() ? ALIVE : FROZEN;
+            }
+            return;
+          }
+        }
+        case FREEZING -> Thread.onSpinWait();
+        default -> throw new AssertionError("unknown state " + state);
+      }
+    }
+  }
+}
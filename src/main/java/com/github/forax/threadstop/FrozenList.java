@@ -0,0 +1,167 @@
+package com.github.forax.threadstop;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * An unmodifiable view of a frozen list.
+ *
+ * The elements are shared with the frozen list (they can not change anymore),
+ * so unlike a frozen FreezeList, the read operations do not check the owner thread nor the frozen state.
+ *
+ * @see FreezeList#frozenView()
+ */
+public final class FrozenList<E> extends AbstractList<E> implements RandomAccess {
+  /**
+   * A cursor shared by several threads, each call to {@link #nextChunk(Consumer)}
+   * claims the next chunk of elements, so the threads steal the work from each other.
+   *
+   * @see #cursor(int)
+   */
+  public static final class Cursor<E> {
+    private final E[] elements;
+    private final int size;
+    private final int chunkSize;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private Cursor(E[] elements, int size, int chunkSize) {
+      this.elements = elements;
+      this.size = size;
+      this.chunkSize = chunkSize;
+      super();
+    }
+
+    /**
+     * Claims the next chunk of elements and calls the action on each element of the chunk.
+     * @param action the action called on each element of the chunk.
+     * @return false if there is no chunk left.
+     */
+    public boolean nextChunk(Consumer<? super E> action) {
+      Objects.requireNonNull(action);
+      for(;;) {
+        var start = next.get();
+        if (start >= size) {
+          return false;
+        }
+        var end = (int) Math.min((long) start + chunkSize, size);
+        if (next.compareAndSet(start, end)) {
+          for(var i = start; i < end; i++) {
+            action.accept(elements[i]);
+          }
+          return true;
+        }
+      }
+    }
+  }
+
+  private final E[] elements;
+  private final int size;
+
+  // the caller guarantees that the elements are not modified anymore
+  FrozenList(E[] elements, int size) {
+    this.elements = elements;
+    this.size = size;
+    super();
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public E get(int index) {
+    Objects.checkIndex(index, size);
+    return elements[index];
+  }
+
+  @Override
+  public Object[] toArray() {
+    return Arrays.copyOf(elements, size, Object[].class);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T[] toArray(T[] array) {
+    if (array.length < size) {
+      return (T[]) Arrays.copyOf(elements, size, array.getClass());
+    }
+    System.arraycopy(elements, 0, array, 0, size);
+    if (array.length > size) {
+      array[size] = null;
+    }
+    return array;
+  }
+
+  @Override
+  public void forEach(Consumer<? super E> action) {
+    Objects.requireNonNull(action);
+    for(var i = 0; i < size; i++) {
+      action.accept(elements[i]);
+    }
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (o == null) {  // null is not a valid element
+      return -1;
+    }
+    for(var i = 0; i < size; i++) {
+      if (o.equals(elements[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(o) != -1;
+  }
+
+  // unlike the iterator of a FreezeList, the iterator can be used by any thread
+  @Override
+  public Iterator<E> iterator() {
+    return new Iterator<>() {
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public E next() {
+        if (index < size) {
+          return elements[index++];
+        }
+        throw new NoSuchElementException();
+      }
+    };
+  }
+
+  /**
+   * Returns a cursor that can be shared by several threads to traverse the elements by chunks.
+   * @param chunkSize the number of elements of a chunk.
+   * @return a new cursor positioned on the first element.
+   */
+  public Cursor<E> cursor(int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize <= 0");
+    }
+    return new Cursor<>(elements, size, chunkSize);
+  }
+
+  @Override
+  public Spliterator<E> spliterator() {
+    return Spliterators.spliterator(elements, 0, size, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+  }
+}
@@ -0,0 +1,20 @@
+package com.github.forax.threadstop;
+
+final class InterruptStopToken implements StopToken {
+  private final Thread thread;
+
+  InterruptStopToken(Thread thread) {
+    this.thread = thread;
+    super();
+  }
+
+  @Override
+  public boolean isStopRequested() {
+    return thread.isInterrupted();
+  }
+
+  @Override
+  public void requestStop() {
+    thread.interrupt();
+  }
+}
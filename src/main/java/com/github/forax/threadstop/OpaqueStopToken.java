@@ -0,0 +1,28 @@
+package com.github.forax.threadstop;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+final class OpaqueStopToken implements StopToken {
+  private static final VarHandle STOP;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      STOP = lookup.findVarHandle(OpaqueStopToken.class, "stop", boolean.class);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private boolean stop;
+
+  @Override
+  public boolean isStopRequested() {
+    return (boolean) STOP.getOpaque(this);
+  }
+
+  @Override
+  public void requestStop() {
+    STOP.setOpaque(this, true);
+  }
+}
@@ -0,0 +1,18 @@
+package com.github.forax.threadstop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that does a mutation guarded by a check of the liveness of a shared arena.
+ *
+ * At build time, the tool {@code ScopedClassRewriter} adds the annotation
+ * {@code jdk.internal.misc.ScopeMemoryAccess.Scoped} to the annotated methods,
+ * so closing the arena (the handshake) can not happen in the middle of the method,
+ * between the check and the mutation.
+ */
+@Target({ElementType.METHOD, ElementType.CONSTRUCTOR})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Scoped { }
@@ -0,0 +1,97 @@
+package com.github.forax.threadstop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * Blocking reads and writes on a channel that are unblocked when a stop token is stopped.
+ *
+ * The channel is closed when the token is stopped, a thread blocked in a read or a write
+ * of an interruptible channel (FileChannel, SocketChannel, Pipe.SourceChannel/SinkChannel, etc.)
+ * is unblocked without interrupting the thread, and the operation throws a {@link StoppedException}.
+ * So the same token can stop a loop (by checking {@link StopTree#isStopRequested()})
+ * and a blocking I/O operation.
+ * <pre>
+ * var token = new StopTree();
+ * ...
+ * while(StopChannels.read(token, channel, buffer) != -1) {
+ *   for(...) {  // parsing loop
+ *     if (token.isStopRequested()) {
+ *       ...
+ *     }
+ *   }
+ * }
+ * </pre>
+ */
+public final class StopChannels {
+  private StopChannels() {
+    throw new AssertionError();
+  }
+
+  private interface IOOperation {
+    int run() throws IOException;
+  }
+
+  private static int execute(StopTree token, Channel channel, IOOperation operation) throws IOException {
+    if (token.isStopRequested()) {
+      throw new StoppedException();
+    }
+    Runnable closeChannel = () -> {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // the channel is closed anyway
+      }
+    };
+    token.onStop(closeChannel);
+    try {
+      return operation.run();
+    } catch (ClosedChannelException e) {  // also AsynchronousCloseException
+      if (token.isStopRequested()) {
+        throw new StoppedException(e);
+      }
+      throw e;
+    } finally {
+      token.removeOnStop(closeChannel);
+    }
+  }
+
+  /**
+   * Reads bytes from the channel into the buffer, the channel is closed if the token is stopped.
+   * @param token the stop token.
+   * @param channel the channel to read from.
+   * @param buffer the buffer to read into.
+   * @return the number of bytes read or -1 if the end of the channel is reached.
+   * @throws StoppedException if the token is stopped.
+   * @throws IOException if an I/O error occurs.
+   * @see ReadableByteChannel#read(ByteBuffer)
+   */
+  public static int read(StopTree token, ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+    Objects.requireNonNull(token);
+    Objects.requireNonNull(channel);
+    Objects.requireNonNull(buffer);
+    return execute(token, channel, () -> channel.read(buffer));
+  }
+
+  /**
+   * Writes bytes from the buffer to the channel, the channel is closed if the token is stopped.
+   * @param token the stop token.
+   * @param channel the channel to write to.
+   * @param buffer the buffer to write from.
+   * @return the number of bytes written.
+   * @throws StoppedException if the token is stopped.
+   * @throws IOException if an I/O error occurs.
+   * @see WritableByteChannel#write(ByteBuffer)
+   */
+  public static int write(StopTree token, WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+    Objects.requireNonNull(token);
+    Objects.requireNonNull(channel);
+    Objects.requireNonNull(buffer);
+    return execute(token, channel, () -> channel.write(buffer));
+  }
+}
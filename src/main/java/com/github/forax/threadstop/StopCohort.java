@@ -0,0 +1,68 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * A group of stop tokens sharing the same shared arena.
+ *
+ * Closing a shared arena does a thread-local handshake with all the threads,
+ * so stopping thousands of arena tokens one by one means thousands of handshakes.
+ * Stopping a cohort stops all its tokens with only one handshake.
+ * A token of a cohort can still be stopped alone, each token also has its own shared arena
+ * which is closed in that case (one handshake), so checking a token is only two scope liveness tests
+ * and never a memory barrier or an opaque read.
+ * The price is one (not yet closed, so cheap) shared arena allocated per token.
+ */
+public final class StopCohort implements StopToken {
+  private final Arena arena;
+  private final MemorySegment.Scope scope;
+
+  public StopCohort() {
+    var arena = Arena.ofShared();
+    this.arena = arena;
+    this.scope = arena.scope();
+    super();
+  }
+
+  public StopToken newToken() {
+    return new CohortToken(scope);
+  }
+
+  @Override
+  public boolean isStopRequested() {
+    return !scope.isAlive();
+  }
+
+  /**
+   * Stops all the tokens of this cohort.
+   */
+  @Override
+  public void requestStop() {
+    ArenaStopToken.close(arena, scope);
+  }
+
+  private static final class CohortToken implements StopToken {
+    private final MemorySegment.Scope cohortScope;
+    private final Arena arena;
+    private final MemorySegment.Scope scope;
+
+    private CohortToken(MemorySegment.Scope cohortScope) {
+      var arena = Arena.ofShared();
+      this.cohortScope = cohortScope;
+      this.arena = arena;
+      this.scope = arena.scope();
+      super();
+    }
+
+    @Override
+    public boolean isStopRequested() {
+      return !cohortScope.isAlive() || !scope.isAlive();
+    }
+
+    @Override
+    public void requestStop() {
+      ArenaStopToken.close(arena, scope);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package com.github.forax.threadstop;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A scope that runs subtasks and stops them using a {@link StopTree} instead of interrupting them.
+ *
+ * Each subtask receives its own arena based stop token, when the scope is shutdown
+ * (at the first failure or at the first success depending on the policy) all the tokens are stopped,
+ * so a compute loop that checks its token exits without polling the interrupt status.
+ * <pre>
+ * try(var scope = StopTaskScope.&lt;Integer&gt;shutdownOnSuccess()) {
+ *   scope.fork(token -> search(array, 0, middle, token));
+ *   scope.fork(token -> search(array, middle, array.length, token));
+ *   return scope.join().result();
+ * }
+ * </pre>
+ *
+ * The methods {@code fork}, {@code join}, {@code result} and {@code close} can only be called
+ * by the thread that has created the scope.
+ *
+ * @param <T> type of the result of the subtasks.
+ */
+public final class StopTaskScope<T> implements AutoCloseable {
+  @FunctionalInterface
+  public interface Task<T> {
+    T call(StopToken token) throws Exception;
+  }
+
+  public enum Policy { SHUTDOWN_ON_FAILURE, SHUTDOWN_ON_SUCCESS }
+
+  private record Result<T>(T value) {}
+
+  private final Executor executor;
+  private final Policy policy;
+  private final Thread ownerThread;
+  private final StopTree root = new StopTree();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicReference<Result<T>> firstResult = new AtomicReference<>();
+  private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+  public StopTaskScope(Executor executor, Policy policy) {
+    Objects.requireNonNull(executor);
+    Objects.requireNonNull(policy);
+    this.executor = executor;
+    this.policy = policy;
+    this.ownerThread = Thread.currentThread();
+    super();
+  }
+
+  private static void startVirtualThread(Runnable runnable) {
+    Thread.ofVirtual().start(runnable);
+  }
+
+  public static <T> StopTaskScope<T> shutdownOnFailure() {
+    return new StopTaskScope<>(StopTaskScope::startVirtualThread, Policy.SHUTDOWN_ON_FAILURE);
+  }
+
+  public static <T> StopTaskScope<T> shutdownOnSuccess() {
+    return new StopTaskScope<>(StopTaskScope::startVirtualThread, Policy.SHUTDOWN_ON_SUCCESS);
+  }
+
+  private void checkOwnerThread() {
+    if (ownerThread != Thread.currentThread()) {
+      throw new IllegalStateException("invalid owner thread");
+    }
+  }
+
+  public Future<T> fork(Task<? extends T> task) {
+    Objects.requireNonNull(task);
+    checkOwnerThread();
+    var token = root.newChild();
+    var future = new CompletableFuture<T>();
+    pending.incrementAndGet();
+    try {
+      executor.execute(() -> run(task, token, future));
+    } catch (RejectedExecutionException e) {
+      token.close();
+      taskDone();
+      throw e;
+    }
+    return future;
+  }
+
+  private void run(Task<? extends T> task, StopTree token, CompletableFuture<T> future) {
+    try {
+      if (token.isStopRequested()) {
+        future.cancel(false);
+        return;
+      }
+      T value;
+      try {
+        value = task.call(token);
+      } catch (Throwable e) {
+        if (root.isStopRequested()) {  // failure after the shutdown
+          future.cancel(false);
+          return;
+        }
+        future.completeExceptionally(e);
+        onFailure(e);
+        return;
+      }
+      if (root.isStopRequested()) {  // the result may be partial
+        future.cancel(false);
+        return;
+      }
+      future.complete(value);
+      onSuccess(value);
+    } finally {
+      token.close();
+      taskDone();
+    }
+  }
+
+  private void onSuccess(T value) {
+    if (policy == Policy.SHUTDOWN_ON_SUCCESS && firstResult.compareAndSet(null, new Result<>(value))) {
+      shutdown();
+    }
+  }
+
+  private void onFailure(Throwable failure) {
+    if (firstFailure.compareAndSet(null, failure) && policy == Policy.SHUTDOWN_ON_FAILURE) {
+      shutdown();
+    }
+  }
+
+  private void taskDone() {
+    if (pending.decrementAndGet() == 0) {
+      LockSupport.unpark(ownerThread);
+    }
+  }
+
+  /**
+   * Stops all the subtasks, the subtasks not yet started will not run.
+   * This method can be called by any thread.
+   */
+  public void shutdown() {
+    root.requestStop();
+  }
+
+  public boolean isShutdown() {
+    return root.isStopRequested();
+  }
+
+  public StopTaskScope<T> join() throws InterruptedException {
+    checkOwnerThread();
+    while(pending.get() != 0) {
+      LockSupport.park(this);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Returns the result of the scope once joined.
+   * With {@link Policy#SHUTDOWN_ON_SUCCESS}, returns the first result;
+   * with {@link Policy#SHUTDOWN_ON_FAILURE}, returns null,
+   * the results being available through the futures returned by {@link #fork(Task)}.
+   *
+   * @return the result of the scope.
+   * @throws ExecutionException if a subtask has failed (and with SHUTDOWN_ON_SUCCESS no subtask succeeded)
+   * @throws IllegalStateException if the scope has not been joined.
+   */
+  public T result() throws ExecutionException {
+    checkOwnerThread();
+    if (pending.get() != 0) {
+      throw new IllegalStateException("scope not joined");
+    }
+    var result = firstResult.get();
+    if (result != null) {
+      return result.value();
+    }
+    var failure = firstFailure.get();
+    if (failure != null) {
+      throw new ExecutionException(failure);
+    }
+    if (policy == Policy.SHUTDOWN_ON_SUCCESS) {
+      throw new IllegalStateException("no subtask succeeded");
+    }
+    return null;
+  }
+
+  /**
+   * Shutdowns the scope and waits for all the subtasks to finish.
+   */
+  @Override
+  public void close() {
+    checkOwnerThread();
+    shutdown();
+    var interrupted = false;
+    while(pending.get() != 0) {
+      LockSupport.park(this);
+      if (Thread.interrupted()) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.github.forax.threadstop;
+
+import java.util.Objects;
+
+/**
+ * A token used by a loop to know if it should stop.
+ *
+ * The loop calls {@link #isStopRequested()} at each iteration,
+ * another thread calls {@link #requestStop()}, requesting a stop several times has no effect.
+ * <pre>
+ * for(var i = 0; i &lt; array.length; i++) {
+ *   if (token.isStopRequested()) {
+ *     break;
+ *   }
+ *   // ...
+ * }
+ * </pre>
+ */
+public interface StopToken {
+  boolean isStopRequested();
+
+  void requestStop();
+
+  // closing the arena forces all the other threads to go to a safepoint,
+  // so the check is a simple read that does not prevent the loop optimizations
+  static StopToken ofArena() {
+    return new ArenaStopToken();
+  }
+
+  static StopToken ofOpaque() {
+    return new OpaqueStopToken();
+  }
+
+  static StopToken ofVolatile() {
+    return new VolatileStopToken();
+  }
+
+  // the check is constant folded if the token is stored in a static final field,
+  // requesting a stop deoptimizes all the codes that have done the check
+  static StopToken ofCallSite() {
+    return CallSiteStopToken.create();
+  }
+
+  // requesting a stop interrupts the thread
+  static StopToken ofInterrupt(Thread thread) {
+    Objects.requireNonNull(thread);
+    return new InterruptStopToken(thread);
+  }
+}
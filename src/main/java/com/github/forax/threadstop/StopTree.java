@@ -0,0 +1,122 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A stop token that is also stopped when its parent is stopped.
+ *
+ * Each node has its own shared arena, so the check in a loop is only one liveness test
+ * of the scope of the node, the parents are never visited.
+ * Closing a node (or requesting a stop) removes it from its parent.
+ * An action registered with {@link #onStop(Runnable)} is run when the node is stopped,
+ * for example to unblock a thread blocked on a channel, see {@link StopChannels}.
+ */
+public final class StopTree implements StopToken, AutoCloseable {
+  private final StopTree parent;
+  private final Arena arena;
+  final MemorySegment.Scope scope;
+  private final Set<StopTree> children = ConcurrentHashMap.newKeySet();
+  private final Set<Runnable> actions = ConcurrentHashMap.newKeySet();
+
+  private StopTree(StopTree parent) {
+    var arena = Arena.ofShared();
+    this.parent = parent;
+    this.arena = arena;
+    this.scope = arena.scope();
+    super();
+  }
+
+  public StopTree() {
+    this(null);
+  }
+
+  public StopTree newChild() {
+    var child = new StopTree(this);
+    children.add(child);
+    if (!scope.isAlive()) {
+      // the stop of this node may have missed the child
+      child.requestStop();
+    }
+    return child;
+  }
+
+  /**
+   * Registers an action run when this node is stopped, if the node is already stopped
+   * the action is run immediately. An action is run at most once.
+   * @param action the action to run.
+   * @see #removeOnStop(Runnable)
+   */
+  public void onStop(Runnable action) {
+    Objects.requireNonNull(action);
+    actions.add(action);
+    if (!scope.isAlive() && actions.remove(action)) {
+      // the stop may have missed the action
+      action.run();
+    }
+  }
+
+  /**
+   * Unregisters an action registered with {@link #onStop(Runnable)}.
+   * @param action the action to unregister.
+   * @return true if the action was registered and has not been run.
+   */
+  public boolean removeOnStop(Runnable action) {
+    Objects.requireNonNull(action);
+    return actions.remove(action);
+  }
+
+  @Override
+  public boolean isStopRequested() {
+    return !scope.isAlive();
+  }
+
+  @Override
+  public void requestStop() {
+    var stopped = new ArrayList<StopTree>();
+    var pending = new ArrayDeque<StopTree>();
+    pending.add(this);
+    StopTree node;
+    while((node = pending.poll()) != null) {
+      // close first, so a child added concurrently sees that its parent is stopped
+      ArenaStopToken.close(node.arena, node.scope);
+      pending.addAll(node.children);
+      node.children.clear();
+      stopped.add(node);
+    }
+    if (parent != null) {
+      parent.children.remove(this);
+    }
+    // the actions are run once all the nodes are stopped
+    RuntimeException exception = null;
+    for(var stoppedNode : stopped) {
+      for(var action : stoppedNode.actions) {
+        if (!stoppedNode.actions.remove(action)) {
+          continue;  // already run or unregistered
+        }
+        try {
+          action.run();
+        } catch (RuntimeException e) {
+          if (exception == null) {
+            exception = e;
+          } else {
+            exception.addSuppressed(e);
+          }
+        }
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  @Override
+  public void close() {
+    requestStop();
+  }
+}
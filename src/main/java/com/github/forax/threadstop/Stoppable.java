@@ -0,0 +1,22 @@
+package com.github.forax.threadstop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method whose loops can be stopped.
+ *
+ * At build time, the tool {@code StoppableClassRewriter} inserts a liveness check of the scope
+ * of the current stop token at the start of each loop of the annotated methods.
+ * When the token is stopped, the loop throws a {@link StoppedException}, so the finally blocks are run.
+ * StoppedException is a RuntimeException, so a {@code catch (RuntimeException e)} (or a catch of
+ * Exception or Throwable) around the loop swallows the stop, such a catch should rethrow a StoppedException.
+ * The stop token is bound by {@link Stoppables#run(StopToken, Runnable)},
+ * if no token is bound, the loops are never stopped.
+ * Only the loops of the annotated method are rewritten, not the loops of the lambdas it contains.
+ */
+@Target({ElementType.METHOD, ElementType.CONSTRUCTOR})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Stoppable { }
@@ -0,0 +1,69 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Binds a stop token to the loops of the methods annotated with {@link Stoppable}.
+ *
+ * <pre>
+ * var token = StopToken.ofArena();
+ * executor.execute(() -&gt; Stoppables.run(token, () -&gt; compute()));
+ * ...
+ * token.requestStop();  // the loops of compute() throw a StoppedException
+ * </pre>
+ */
+public final class Stoppables {
+  private static final ScopedValue<MemorySegment.Scope> SCOPE = ScopedValue.newInstance();
+  private static final MemorySegment.Scope GLOBAL_SCOPE = Arena.global().scope();  // never closed
+
+  private Stoppables() {
+    throw new AssertionError();
+  }
+
+  // only the tokens backed by an arena can be checked with a liveness test
+  private static MemorySegment.Scope scopeOf(StopToken token) {
+    Objects.requireNonNull(token);
+    return switch (token) {
+      case ArenaStopToken arenaStopToken -> arenaStopToken.scope;
+      case StopTree stopTree -> stopTree.scope;
+      default -> throw new IllegalArgumentException("the token is not backed by an arena " + token);
+    };
+  }
+
+  /**
+   * Runs a task, the loops of the methods annotated with {@link Stoppable} called by the task
+   * are stopped when the token is stopped.
+   * @param token a token created by {@link StopToken#ofArena()} or a {@link StopTree}.
+   * @param task the task to run.
+   * @throws IllegalArgumentException if the token is not backed by an arena.
+   */
+  public static void run(StopToken token, Runnable task) {
+    Objects.requireNonNull(task);
+    ScopedValue.where(SCOPE, scopeOf(token)).run(task);
+  }
+
+  /**
+   * Same as {@link #run(StopToken, Runnable)} but the task returns a value.
+   * @param token a token created by {@link StopToken#ofArena()} or a {@link StopTree}.
+   * @param task the task to run.
+   * @return the value returned by the task.
+   * @throws IllegalArgumentException if the token is not backed by an arena.
+   */
+  public static <T> T call(StopToken token, Supplier<? extends T> task) {
+    Objects.requireNonNull(task);
+    return ScopedValue.where(SCOPE, scopeOf(token)).call(task::get);
+  }
+
+  // called by the rewritten code at the start of a @Stoppable method
+  public static MemorySegment.Scope currentScope() {
+    return SCOPE.orElse(GLOBAL_SCOPE);
+  }
+
+  // called by the rewritten code when the scope is closed, the rewritten code throws the exception
+  public static StoppedException stopped() {
+    return new StoppedException();
+  }
+}
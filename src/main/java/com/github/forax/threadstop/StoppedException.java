@@ -0,0 +1,16 @@
+package com.github.forax.threadstop;
+
+/**
+ * Thrown when a computation is stopped by its stop token.
+ *
+ * @see Stoppable
+ */
+public final class StoppedException extends RuntimeException {
+  public StoppedException() {
+    super();
+  }
+
+  public StoppedException(Throwable cause) {
+    super(cause);
+  }
+}
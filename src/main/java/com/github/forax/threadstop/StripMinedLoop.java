@@ -0,0 +1,110 @@
+package com.github.forax.threadstop;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Runs a kernel over a range of indexes by chunks and checks the stop token once per chunk.
+ *
+ * The loop of the kernel has no stop check, so it can be vectorized (by the JIT or with the Vector API),
+ * even if the stop token is a token that prevents the vectorization when checked at each iteration
+ * (a volatile field, {@link Thread#interrupted()}, etc.).
+ * The size of a chunk adapts so the time to run a chunk is close to the target latency,
+ * which is the time between a stop request and the end of the loop.
+ * A chunk size is always a multiple of the granularity (e.g. the number of lanes of a vector species)
+ * except for the last chunk.
+ * <pre>
+ * var loop = new StripMinedLoop(token, Duration.ofMillis(1), IntVector.SPECIES_PREFERRED.length());
+ * loop.run(array.length, (start, end) -&gt; {
+ *   // SIMD loop from start to end
+ * });
+ * </pre>
+ * A StripMinedLoop keeps the chunk size between the runs and should only be used by one thread.
+ */
+public final class StripMinedLoop {
+  private static final int INITIAL_CHUNK_SIZE = 1 << 12;
+  private static final int MAX_CHUNK_SIZE = 1 << 30;
+
+  /**
+   * The kernel run on a chunk.
+   */
+  @FunctionalInterface
+  public interface Kernel {
+    /**
+     * Runs the kernel on the indexes from start (inclusive) to end (exclusive).
+     * @param start the first index of the chunk.
+     * @param end the index after the last index of the chunk.
+     */
+    void run(int start, int end);
+  }
+
+  private final StopToken token;
+  private final long targetLatencyNanos;
+  private final int granularity;
+  private int chunkSize;
+
+  public StripMinedLoop(StopToken token, Duration targetLatency, int granularity) {
+    Objects.requireNonNull(token);
+    Objects.requireNonNull(targetLatency);
+    if (targetLatency.isNegative() || targetLatency.isZero()) {
+      throw new IllegalArgumentException("targetLatency <= 0");
+    }
+    if (granularity <= 0 || granularity > MAX_CHUNK_SIZE) {
+      throw new IllegalArgumentException("invalid granularity " + granularity);
+    }
+    this.token = token;
+    this.targetLatencyNanos = targetLatency.toNanos();
+    this.granularity = granularity;
+    this.chunkSize = roundToGranularity(INITIAL_CHUNK_SIZE);
+    super();
+  }
+
+  private int roundToGranularity(long size) {
+    var rounded = Math.min(size, MAX_CHUNK_SIZE) / granularity * granularity;
+    return (int) Math.max(rounded, granularity);
+  }
+
+  /**
+   * Returns the current chunk size.
+   * @return the current chunk size.
+   */
+  public int chunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Runs the kernel on the indexes from 0 to length by chunks.
+   * @param length the number of indexes.
+   * @param kernel the kernel run on each chunk.
+   * @return true if all the chunks were run, false if the loop was stopped.
+   */
+  public boolean run(int length, Kernel kernel) {
+    Objects.requireNonNull(kernel);
+    if (length < 0) {
+      throw new IllegalArgumentException("length < 0");
+    }
+    for(var start = 0; start < length;) {
+      if (token.isStopRequested()) {
+        return false;
+      }
+      var size = chunkSize;
+      var end = (int) Math.min((long) start + size, length);
+      var startTime = System.nanoTime();
+      kernel.run(start, end);
+      var elapsed = System.nanoTime() - startTime;
+      if (end - start == size) {  // a partial chunk says nothing about the speed
+        adapt(elapsed);
+      }
+      start = end;
+    }
+    return true;
+  }
+
+  // the chunk size at most doubles or halves at each chunk, so a hiccup (a GC, a deoptimization)
+  // does not change it too much
+  private void adapt(long elapsed) {
+    double newSize = elapsed <= 0 ? 2.0 * chunkSize : (double) chunkSize * targetLatencyNanos / elapsed;
+    newSize = Math.clamp(newSize, chunkSize / 2.0, 2.0 * chunkSize);
+    chunkSize = roundToGranularity((long) newSize);
+  }
+}
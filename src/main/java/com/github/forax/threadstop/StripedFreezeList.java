@@ -0,0 +1,157 @@
+package com.github.forax.threadstop;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A FreezeList with several writer threads.
+ *
+ * Each writer thread registers itself with {@link #newWriter()} and appends to its own buffer
+ * without any synchronization. The first read (from any thread) freezes the list,
+ * the buffers are then sealed into one read-only view, the elements are not copied.
+ * The elements of a writer are in the order of the calls to {@link Writer#add(Object)},
+ * the order between the writers is the registration order.
+ */
+public final class StripedFreezeList<E> extends AbstractList<E> implements RandomAccess {
+  public static final class Writer<E> {
+    private E[] elements;
+    private int size;
+    private final Thread ownerThread;
+    private final MemorySegment.Scope scope;
+
+    private Writer(MemorySegment.Scope scope) {
+      @SuppressWarnings("unchecked")
+      var elements = (E[]) new Object[16];
+      this.elements = elements;
+      this.ownerThread = Thread.currentThread();
+      this.scope = scope;
+      super();
+    }
+
+    private void resize() {
+      elements = Arrays.copyOf(elements, size * 2);
+    }
+
+    @Scoped
+    public void add(E element) {
+      Objects.requireNonNull(element);
+      if (ownerThread != Thread.currentThread()) {
+        throw new IllegalStateException("invalid owner thread");
+      }
+      if (!scope.isAlive()) {
+        throw new UnsupportedOperationException("list is frozen");
+      }
+      // modifications thus the method has to be @Scoped
+      if (elements.length == size) {
+        resize();  // slow path
+      }
+      elements[size++] = element;
+    }
+  }
+
+  // the sealed buffers, offsets[i] is the index of the first element of buffers[i]
+  private record View(Object[][] buffers, int[] offsets, int size) {
+    Object get(int index) {
+      Objects.checkIndex(index, size);
+      var bufferIndex = Arrays.binarySearch(offsets, index);
+      if (bufferIndex < 0) {
+        bufferIndex = -bufferIndex - 2;
+      }
+      return buffers[bufferIndex][index - offsets[bufferIndex]];
+    }
+  }
+
+  private static final VarHandle VIEW;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      VIEW = lookup.findVarHandle(StripedFreezeList.class, "view", View.class);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private final Freezer freezer;
+  private final MemorySegment.Scope scope;
+  private final ConcurrentLinkedQueue<Writer<E>> writers = new ConcurrentLinkedQueue<>();
+  private View view;  // null until frozen, the fields of a View are final so a racy read is safe
+
+  public StripedFreezeList() {
+    var freezer = new Freezer();
+    this.freezer = freezer;
+    this.scope = freezer.scope;
+    super();
+  }
+
+  /**
+   * Registers the current thread as a writer.
+   * @return a writer that can only be used by the current thread.
+   * @throws UnsupportedOperationException if the list is frozen.
+   */
+  public Writer<E> newWriter() {
+    if (!scope.isAlive()) {
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    var writer = new Writer<E>(scope);
+    writers.add(writer);
+    if (!scope.isAlive()) {  // the freeze may have missed the writer
+      throw new UnsupportedOperationException("list is frozen");
+    }
+    return writer;
+  }
+
+  private View seal() {
+    var buffers = writers.stream()
+        .filter(writer -> writer.size != 0)
+        .toList();
+    var elementArrays = new Object[buffers.size()][];
+    var offsets = new int[buffers.size()];
+    var size = 0;
+    for(var i = 0; i < buffers.size(); i++) {
+      var writer = buffers.get(i);
+      elementArrays[i] = writer.elements;
+      offsets[i] = size;
+      size = Math.addExact(size, writer.size);
+    }
+    return new View(elementArrays, offsets, size);
+  }
+
+  private View frozenView() {
+    freezer.freeze();
+    // several threads may seal the buffers, only one view is published
+    var view = seal();
+    var witness = (View) VIEW.compareAndExchange(this, (View) null, view);
+    return witness == null ? view : witness;
+  }
+
+  public void freeze() {
+    if (view == null) {
+      frozenView();
+    }
+  }
+
+  @Override
+  public int size() {
+    var view = this.view;
+    if (view == null) {
+      view = frozenView();
+    }
+    return view.size();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    var view = this.view;
+    if (view == null) {
+      view = frozenView();
+    }
+    return (E) view.get(index);
+  }
+}
@@ -0,0 +1,15 @@
+package com.github.forax.threadstop;
+
+final class VolatileStopToken implements StopToken {
+  private volatile boolean stop;
+
+  @Override
+  public boolean isStopRequested() {
+    return stop;
+  }
+
+  @Override
+  public void requestStop() {
+    stop = true;
+  }
+}
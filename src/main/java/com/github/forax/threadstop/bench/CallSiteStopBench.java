@@ -0,0 +1,127 @@
+package com.github.forax.threadstop.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// With a MutableCallSite, the check is free (constant folded) until the stop,
+// this benchmark measures what happens after:
+// - syncAll: the cost of changing the target, i.e. the deoptimization of the codes that depend on the call site
+// - shared_first_call: the first call of a code that shares the call site (and is not stopped by it)
+// - shared_recompilation: 20 000 calls of that code, so the time to recompile it is included
+
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar CallSiteStopBench -jvmArgsAppend -XX:+PrintCompilation
+@Warmup(iterations = 5, batchSize = 1)
+@Measurement(iterations = 20, batchSize = 1)
+@Fork(value = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CallSiteStopBench {
+  static final class Stop extends MutableCallSite {
+    public Stop() {
+      super(MethodType.methodType(boolean.class));
+      setTarget(MethodHandles.constant(boolean.class, false));
+    }
+  }
+
+  static final Stop STOP = new Stop();
+  static final MethodHandle STOP_MH = STOP.dynamicInvoker();
+
+  private static final int[] ARRAY = new Random(0).ints(10_000).toArray();
+
+  private static void setStop(boolean stop) {
+    STOP.setTarget(MethodHandles.constant(boolean.class, stop));
+    MutableCallSite.syncAll(new MutableCallSite[] { STOP });
+  }
+
+  private static boolean stop() {
+    try {
+      return (boolean) STOP_MH.invokeExact();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  // the loop stopped by the call site
+  static int loop() {
+    var sum = 0;
+    for(var i = 0; i < ARRAY.length; i++) {
+      if (stop()) {
+        break;
+      }
+      sum += ARRAY[i];
+    }
+    return sum;
+  }
+
+  // another code that only reads the call site
+  static int shared() {
+    var sum = 0;
+    for(var i = 0; i < ARRAY.length; i++) {
+      sum += ARRAY[i];
+    }
+    return stop() ? -sum : sum;
+  }
+
+  // compile the codes that depend on the call site
+  static void compile() {
+    setStop(false);
+    for(var i = 0; i < 20_000; i++) {
+      loop();
+      shared();
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Compiled {
+    @Setup(Level.Iteration)
+    public void setup() {
+      compile();
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Stopped {
+    @Setup(Level.Iteration)
+    public void setup() {
+      compile();
+      setStop(true);
+    }
+  }
+
+  @Benchmark
+  public void syncAll(Compiled compiled) {
+    setStop(true);
+  }
+
+  @Benchmark
+  public int shared_first_call(Stopped stopped) {
+    return shared();
+  }
+
+  @Benchmark
+  public int shared_recompilation(Stopped stopped) {
+    var sum = 0;
+    for(var i = 0; i < 20_000; i++) {
+      sum += shared();
+    }
+    return sum;
+  }
+}
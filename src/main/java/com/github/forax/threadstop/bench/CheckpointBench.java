@@ -0,0 +1,144 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.CheckpointScheduler;
+import com.github.forax.threadstop.StopToken;
+import com.github.forax.threadstop.StoppedException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Thousands of compute-bound virtual threads, each one runs a loop of WORK iterations.
+// - throughput: time to run all the virtual threads.
+// - probe_latency: time for a new virtual thread to run while the compute threads are running,
+//   without a yield, the probe has to wait until a carrier thread is free (carrier fairness).
+// none is a loop without check, stop only checks a stop token (the loop never yields),
+// checkpoint checks a Checkpoint (stop and yield every time slice).
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar CheckpointBench
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+public class CheckpointBench {
+  private static final int WORK = 1_000_000;
+
+  @Param({"1000", "10000"})
+  int threads;
+
+  @Param({"none", "stop", "checkpoint"})
+  String strategy;
+
+  private CheckpointScheduler scheduler;
+  private StopToken token;
+
+  @Setup
+  public void startScheduler() {
+    scheduler = new CheckpointScheduler(Duration.ofMillis(1));
+    token = StopToken.ofArena();
+  }
+
+  @TearDown
+  public void stopScheduler() {
+    scheduler.close();
+  }
+
+  private static int next(int seed) {
+    return seed * 1_103_515_245 + 12_345;
+  }
+
+  private static int computeNone() {
+    var seed = 0;
+    for(var i = 0; i < WORK; i++) {
+      seed = next(seed);
+    }
+    return seed;
+  }
+
+  private static int computeStop(StopToken token) {
+    var seed = 0;
+    for(var i = 0; i < WORK; i++) {
+      if (token.isStopRequested()) {
+        break;
+      }
+      seed = next(seed);
+    }
+    return seed;
+  }
+
+  private static int computeCheckpoint(CheckpointScheduler scheduler, StopToken token) {
+    var checkpoint = scheduler.newCheckpoint(token);
+    var seed = 0;
+    try {
+      for(var i = 0; i < WORK; i++) {
+        checkpoint.check();
+        seed = next(seed);
+      }
+    } catch (StoppedException e) {
+      // stop
+    }
+    return seed;
+  }
+
+  static volatile int sink;
+
+  Thread[] startComputeThreads() {
+    Runnable task = switch (strategy) {
+      case "none" -> () -> sink = computeNone();
+      case "stop" -> () -> sink = computeStop(token);
+      case "checkpoint" -> () -> sink = computeCheckpoint(scheduler, token);
+      default -> throw new AssertionError("unknown strategy " + strategy);
+    };
+    var computeThreads = new Thread[threads];
+    for(var i = 0; i < threads; i++) {
+      computeThreads[i] = Thread.ofVirtual().start(task);
+    }
+    return computeThreads;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void throughput() throws InterruptedException {
+    for(var thread : startComputeThreads()) {
+      thread.join();
+    }
+  }
+
+
+  @State(Scope.Benchmark)
+  public static class Load {
+    private Thread[] computeThreads;
+
+    @Setup(Level.Invocation)
+    public void start(CheckpointBench bench) {
+      computeThreads = bench.startComputeThreads();
+    }
+
+    @TearDown(Level.Invocation)
+    public void join() throws InterruptedException {
+      for(var thread : computeThreads) {
+        thread.join();
+      }
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void probe_latency(Load load) throws InterruptedException {
+    Thread.ofVirtual().start(() -> {}).join();
+  }
+}
@@ -0,0 +1,111 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.DeadlineScheduler;
+import com.github.forax.threadstop.StopToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Cost of creating a token with a deadline when there are already many pending deadlines,
+// the deadline scheduler vs one task of a ScheduledExecutorService per deadline,
+// and cost of the check in a loop with a deadline token vs an arena token.
+// The two new_token benchmarks are not symmetric: the task of the executor is cancelled
+// (otherwise its queue grows until the heap is full) while the token of the scheduler stays
+// in the wheel until its deadline, stopping it would cost a handshake that dwarfs the creation.
+// So new_token_deadline_scheduler also pays for a wheel that grows during the iteration.
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar DeadlineSchedulerBench
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class DeadlineSchedulerBench {
+  @Param({"0", "1000000"})
+  int pending;
+
+  private DeadlineScheduler scheduler;
+  private ScheduledThreadPoolExecutor executor;
+  private final ArrayList<Object> pendingDeadlines = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    scheduler = new DeadlineScheduler(Duration.ofMillis(1));
+    executor = new ScheduledThreadPoolExecutor(1);
+    executor.setRemoveOnCancelPolicy(true);
+    for(var i = 0; i < pending; i++) {
+      pendingDeadlines.add(scheduler.newToken(Duration.ofHours(1)));
+      var token = StopToken.ofVolatile();
+      pendingDeadlines.add(executor.schedule(token::requestStop, 1, TimeUnit.HOURS));
+    }
+    deadlineToken = scheduler.newToken(Duration.ofHours(1));
+  }
+
+  @TearDown
+  public void tearDown() {
+    scheduler.close();
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public StopToken new_token_deadline_scheduler() {
+    return scheduler.newToken(Duration.ofSeconds(10));
+  }
+
+  @Benchmark
+  public StopToken new_token_scheduled_executor() {
+    var token = StopToken.ofVolatile();
+    var future = executor.schedule(token::requestStop, 10, TimeUnit.SECONDS);
+    future.cancel(false);  // removed from the queue, otherwise the queue grows during the benchmark
+    return token;
+  }
+
+
+  private final int[] array = new Random(0).ints(100_000).toArray();
+  private final StopToken arenaToken = StopToken.ofArena();
+  private StopToken deadlineToken;
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int loop_arena() {
+    var token = arenaToken;
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if (token.isStopRequested()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int loop_deadline() {
+    var token = deadlineToken;
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if (token.isStopRequested()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
+}
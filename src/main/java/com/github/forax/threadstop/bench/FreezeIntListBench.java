@@ -0,0 +1,107 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.FreezeIntList;
+import com.github.forax.threadstop.FreezeList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toCollection;
+
+// same as FreezeListBench but without the boxing
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar FreezeIntListBench -prof gc
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FreezeIntListBench {
+  private final FreezeList<Integer> freezeList = IntStream.range(0, 10_000)
+      .boxed()
+      .collect(toCollection(FreezeList::new));
+
+  private final FreezeIntList freezeIntList = new FreezeIntList();
+  {
+    for (var i = 0; i < 10_000; i++) {
+      freezeIntList.add(i);
+    }
+  }
+
+  private final FreezeIntList frozenIntList = new FreezeIntList();
+  private final MemorySegment frozenSegment;
+  {
+    for (var i = 0; i < 10_000; i++) {
+      frozenIntList.add(i);
+    }
+    frozenSegment = frozenIntList.asSegment();
+  }
+
+  @Benchmark
+  public int freezeListLoop() {
+    var sum = 0;
+    for (var i = 0; i < freezeList.size(); i++) {
+      var element = freezeList.get(i);
+      sum += element;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int freezeIntListLoop() {
+    var sum = 0;
+    for (var i = 0; i < freezeIntList.size(); i++) {
+      sum += freezeIntList.get(i);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int frozenIntListLoop() {
+    var sum = 0;
+    for (var i = 0; i < frozenIntList.size(); i++) {
+      sum += frozenIntList.get(i);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int frozenSegmentLoop() {
+    var sum = 0;
+    var length = frozenSegment.byteSize() / ValueLayout.JAVA_INT.byteSize();
+    for (var i = 0L; i < length; i++) {
+      sum += frozenSegment.getAtIndex(ValueLayout.JAVA_INT, i);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int freezeListBuild() {
+    var list = new FreezeList<Integer>();
+    for (var i = 0; i < 10_000; i++) {
+      list.add(i);
+    }
+    return list.size();
+  }
+
+  @Benchmark
+  public int freezeIntListBuild() {
+    var list = new FreezeIntList();
+    for (var i = 0; i < 10_000; i++) {
+      list.add(i);
+    }
+    return list.size();
+  }
+}
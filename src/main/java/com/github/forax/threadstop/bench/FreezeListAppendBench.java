@@ -0,0 +1,115 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.ChunkedFreezeList;
+import com.github.forax.threadstop.FreezeList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Append throughput and append latency of the doubling strategy (FreezeList, ArrayList)
+// and the chunked strategy (ChunkedFreezeList).
+// The p99/p99.9 of the latency benchmarks shows the cost of the copies when the list grows.
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar FreezeListAppendBench -jvmArgs -Xmx8g
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FreezeListAppendBench {
+  @State(Scope.Benchmark)
+  public static class Sizes {
+    @Param({"1000000", "10000000", "100000000"})
+    int size;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public List<Integer> throughput_array_list(Sizes sizes) {
+    var list = new ArrayList<Integer>();
+    for(var i = 0; i < sizes.size; i++) {
+      list.add(i & 127);
+    }
+    return list;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public List<Integer> throughput_freeze_list(Sizes sizes) {
+    var list = new FreezeList<Integer>();
+    for(var i = 0; i < sizes.size; i++) {
+      list.add(i & 127);
+    }
+    return list;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public List<Integer> throughput_chunked_freeze_list(Sizes sizes) {
+    var list = new ChunkedFreezeList<Integer>();
+    for(var i = 0; i < sizes.size; i++) {
+      list.add(i & 127);
+    }
+    return list;
+  }
+
+
+  // one add per invocation, the list is recreated when it reaches LIMIT elements,
+  // the state is per thread because only the owner thread can add
+  private static final int LIMIT = 10_000_000;
+
+  @State(Scope.Thread)
+  public static class ArrayListState {
+    ArrayList<Integer> list = new ArrayList<>();
+  }
+
+  @State(Scope.Thread)
+  public static class FreezeListState {
+    FreezeList<Integer> list = new FreezeList<>();
+  }
+
+  @State(Scope.Thread)
+  public static class ChunkedFreezeListState {
+    ChunkedFreezeList<Integer> list = new ChunkedFreezeList<>();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean latency_array_list(ArrayListState state) {
+    if (state.list.size() == LIMIT) {
+      state.list = new ArrayList<>();
+    }
+    return state.list.add(42);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean latency_freeze_list(FreezeListState state) {
+    if (state.list.size() == LIMIT) {
+      state.list = new FreezeList<>();
+    }
+    return state.list.add(42);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean latency_chunked_freeze_list(ChunkedFreezeListState state) {
+    if (state.list.size() == LIMIT) {
+      state.list = new ChunkedFreezeList<>();
+    }
+    return state.list.add(42);
+  }
+}
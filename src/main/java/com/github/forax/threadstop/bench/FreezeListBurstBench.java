@@ -0,0 +1,82 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.FreezeList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+// A freshly published list is read for the first time by N threads at the same moment,
+// so all the threads try to freeze the list.
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar FreezeListBurstBench
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FreezeListBurstBench {
+  @Param({"1", "10", "100"})
+  int readers;
+
+  private volatile FreezeList<Integer> list;
+  private CyclicBarrier start;
+  private CyclicBarrier end;
+  private Thread[] readerThreads;
+
+  @Setup
+  public void startReaders() {
+    start = new CyclicBarrier(readers + 1);
+    end = new CyclicBarrier(readers + 1);
+    readerThreads = new Thread[readers];
+    for(var i = 0; i < readers; i++) {
+      readerThreads[i] = Thread.ofPlatform().daemon().start(() -> {
+        try {
+          for(;;) {
+            start.await();
+            list.size();  // first read, freezes the list
+            end.await();
+          }
+        } catch (InterruptedException | BrokenBarrierException e) {
+          // stop
+        }
+      });
+    }
+  }
+
+  @TearDown
+  public void stopReaders() {
+    for(var thread : readerThreads) {
+      thread.interrupt();
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void newList() {
+    var list = new FreezeList<Integer>();
+    for(var i = 0; i < 1_000; i++) {
+      list.add(i);
+    }
+    this.list = list;
+  }
+
+  @Benchmark
+  public void firstReads() throws InterruptedException, BrokenBarrierException {
+    start.await();
+    end.await();
+  }
+}
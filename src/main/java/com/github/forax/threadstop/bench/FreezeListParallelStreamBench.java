@@ -0,0 +1,58 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.FreezeList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the elements are small integers (cached boxes), so 100M elements fit in a few GB
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar FreezeListParallelStreamBench -jvmArgs -Xmx8g
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FreezeListParallelStreamBench {
+  @Param({"1000000", "10000000", "100000000"})
+  int size;
+
+  private List<Integer> arrayList;
+  private List<Integer> freezeList;
+
+  @Setup
+  public void setup() {
+    var arrayList = new ArrayList<Integer>(size);
+    var freezeList = new FreezeList<Integer>();
+    for(var i = 0; i < size; i++) {
+      arrayList.add(i & 127);
+      freezeList.add(i & 127);
+    }
+    freezeList.freeze();
+    this.arrayList = arrayList;
+    this.freezeList = freezeList;
+  }
+
+  @Benchmark
+  public long arrayListParallelStream() {
+    return arrayList.parallelStream().mapToLong(x -> x).sum();
+  }
+
+  @Benchmark
+  public long freezeListParallelStream() {
+    return freezeList.parallelStream().mapToLong(x -> x).sum();
+  }
+}
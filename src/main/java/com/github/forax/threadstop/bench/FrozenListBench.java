@@ -0,0 +1,117 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.FreezeList;
+import com.github.forax.threadstop.FrozenList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toCollection;
+
+// Same loops as FreezeListBench but the call site of size()/get() is shared between
+// several implementations of List (the profile is polluted), which is the common case in real code.
+// The *_polluted benchmarks call the same non-inlined method sum(List),
+// the *_mono benchmarks have their own loop, so only one class is seen.
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar FrozenListBench
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FrozenListBench {
+  private List<Integer> arrayList;
+  private FreezeList<Integer> freezeList;
+  private FrozenList<Integer> frozenList;
+
+  @Setup
+  public void setup() {
+    arrayList = IntStream.range(0, 10_000)
+        .boxed()
+        .collect(toCollection(ArrayList::new));
+    freezeList = IntStream.range(0, 10_000)
+        .boxed()
+        .collect(toCollection(FreezeList::new));
+    frozenList = freezeList.frozenView();
+
+    // pollute the profile of sum(), more than 2 receiver classes makes the call sites megamorphic
+    var lists = List.of(arrayList, freezeList, frozenList,
+        Arrays.asList(arrayList.toArray(Integer[]::new)), List.copyOf(arrayList));
+    for(var i = 0; i < 10_000; i++) {
+      for(var list : lists) {
+        sum(list);
+      }
+    }
+  }
+
+  @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+  private static int sum(List<Integer> list) {
+    var sum = 0;
+    for (var i = 0; i < list.size(); i++) {
+      var element = list.get(i);
+      sum += element;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int arrayList_polluted() {
+    return sum(arrayList);
+  }
+
+  @Benchmark
+  public int freezeList_polluted() {
+    return sum(freezeList);
+  }
+
+  @Benchmark
+  public int frozenList_polluted() {
+    return sum(frozenList);
+  }
+
+
+  @Benchmark
+  public int arrayList_mono() {
+    var sum = 0;
+    for (var i = 0; i < arrayList.size(); i++) {
+      var element = arrayList.get(i);
+      sum += element;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int freezeList_mono() {
+    var sum = 0;
+    for (var i = 0; i < freezeList.size(); i++) {
+      var element = freezeList.get(i);
+      sum += element;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int frozenList_mono() {
+    var sum = 0;
+    for (var i = 0; i < frozenList.size(); i++) {
+      var element = frozenList.get(i);
+      sum += element;
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,86 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.StopCohort;
+import com.github.forax.threadstop.StopToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// time to stop all the tokens while a thread is running a loop checking the last token,
+// one arena per token (one handshake per token) vs one cohort (one handshake)
+
+// the time spent in safepoints/handshakes can be seen with
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar StopCohortBench -prof safepoints
+@Warmup(iterations = 10, batchSize = 1)
+@Measurement(iterations = 20, batchSize = 1)
+@Fork(value = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StopCohortBench {
+  @Param({"1", "100", "10000", "100000"})
+  int tokens;
+
+  private StopCohort cohort;
+  private List<StopToken> arenaTokens;
+  private List<StopToken> cohortTokens;
+  private Thread loopThread;
+
+  // the result of the loop is stored, so the loop is not removed
+  long loopSum;
+
+  // the loop is stopped by both benchmarks, so it checks both tokens
+  private void loop(StopToken arenaToken, StopToken cohortToken) {
+    var sum = 0L;
+    while(!arenaToken.isStopRequested() && !cohortToken.isStopRequested()) {
+      sum++;
+    }
+    loopSum = sum;
+  }
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    cohort = new StopCohort();
+    arenaTokens = IntStream.range(0, tokens).mapToObj(_ -> StopToken.ofArena()).toList();
+    cohortTokens = IntStream.range(0, tokens).mapToObj(_ -> cohort.newToken()).toList();
+    var arenaToken = arenaTokens.getLast();
+    var cohortToken = cohortTokens.getLast();
+    loopThread = Thread.ofPlatform().start(() -> loop(arenaToken, cohortToken));
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws InterruptedException {
+    cohort.requestStop();
+    arenaTokens.forEach(StopToken::requestStop);
+    loopThread.join();
+  }
+
+  @Benchmark
+  public void stop_arena_tokens() throws InterruptedException {
+    for(var token : arenaTokens) {
+      token.requestStop();
+    }
+    loopThread.join();
+  }
+
+  @Benchmark
+  public void stop_cohort() throws InterruptedException {
+    cohort.requestStop();
+    loopThread.join();
+  }
+}
@@ -0,0 +1,125 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.StopTaskScope;
+import com.github.forax.threadstop.StopToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// fan-out of compute loops then cancel them all,
+// a StopTaskScope (one arena per subtask) vs Future.cancel(true) (interrupt)
+// the number of subtasks is capped by the number of cores because a compute loop pins
+// the carrier of a virtual thread
+
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar StopTaskScopeBench
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StopTaskScopeBench {
+  private final int[] array = new Random(0).ints(100_000).toArray();
+
+  @Param({"virtual", "platform"})
+  String threads;
+
+  @Param({"2", "8"})
+  int subtasks;
+
+  private ExecutorService executor;
+  private int forks;
+
+  @Setup
+  public void setup() {
+    forks = Math.min(subtasks, Runtime.getRuntime().availableProcessors());
+    executor = switch (threads) {
+      case "virtual" -> Executors.newVirtualThreadPerTaskExecutor();
+      case "platform" -> Executors.newFixedThreadPool(forks);
+      default -> throw new AssertionError("unknown threads " + threads);
+    };
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.close();
+  }
+
+  private int arenaLoop(StopToken token, CountDownLatch started) {
+    started.countDown();
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        if (token.isStopRequested()) {
+          return sum;
+        }
+        sum += array[i];
+      }
+    }
+  }
+
+  private int interruptLoop(CountDownLatch started) {
+    started.countDown();
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        if (Thread.currentThread().isInterrupted()) {
+          return sum;
+        }
+        sum += array[i];
+      }
+    }
+  }
+
+  @Benchmark
+  public void stop_task_scope() throws InterruptedException {
+    var started = new CountDownLatch(forks);
+    try(var scope = new StopTaskScope<Integer>(executor, StopTaskScope.Policy.SHUTDOWN_ON_FAILURE)) {
+      for(var i = 0; i < forks; i++) {
+        scope.fork(token -> arenaLoop(token, started));
+      }
+      started.await();
+      scope.shutdown();
+      scope.join();
+    }
+  }
+
+  @Benchmark
+  public void stop_interrupt() throws InterruptedException {
+    var started = new CountDownLatch(forks);
+    var stopped = new CountDownLatch(forks);
+    var futures = new ArrayList<Future<?>>();
+    for(var i = 0; i < forks; i++) {
+      futures.add(executor.submit(() -> {
+        try {
+          return interruptLoop(started);
+        } finally {
+          stopped.countDown();
+        }
+      }));
+    }
+    started.await();
+    for(var future : futures) {
+      future.cancel(true);
+    }
+    stopped.await();
+  }
+}
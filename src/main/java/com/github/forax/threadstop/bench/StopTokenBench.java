@@ -0,0 +1,141 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.StopCohort;
+import com.github.forax.threadstop.StopToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// the calls through the interface StopToken should be as fast as the raw checks
+// of ThreadStopLoopArrayAccessBench once inlined
+
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar StopTokenBench -prof dtraceasm
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StopTokenBench {
+  private final int[] array = new Random(0).ints(100_000).toArray();
+
+  @Benchmark
+  public int no_stop() {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      sum += array[i];
+    }
+    return sum;
+  }
+
+
+  final Arena arena = Arena.ofShared();
+  final MemorySegment.Scope scope = arena.scope();
+
+  @Benchmark
+  public int stop_arena() {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if (!scope.isAlive()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
+
+
+  final StopToken arenaToken = StopToken.ofArena();
+
+  @Benchmark
+  public int token_arena() {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if (arenaToken.isStopRequested()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
+
+
+  // a token of a cohort checks two scopes, the one of the cohort and its own
+  final StopToken cohortToken = new StopCohort().newToken();
+
+  @Benchmark
+  public int token_cohort() {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if (cohortToken.isStopRequested()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
+
+
+  final StopToken opaqueToken = StopToken.ofOpaque();
+
+  @Benchmark
+  public int token_opaque() {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if (opaqueToken.isStopRequested()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
+
+
+  final StopToken volatileToken = StopToken.ofVolatile();
+
+  @Benchmark
+  public int token_volatile() {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if (volatileToken.isStopRequested()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
+
+
+  StopToken interruptToken;
+
+  @Setup
+  public void setup() {
+    // the benchmark methods are run by the same thread as the setup methods
+    interruptToken = StopToken.ofInterrupt(Thread.currentThread());
+  }
+
+  @Benchmark
+  public int token_interrupt() {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if (interruptToken.isStopRequested()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,217 @@
+package com.github.forax.threadstop.bench;
+
+import com.github.forax.threadstop.StopToken;
+import com.github.forax.threadstop.StripMinedLoop;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A sum written with the Vector API, for 128/256/512-bit species
+// - no_stop: no stop check
+// - volatile_each_iteration: a volatile read at each iteration of the vector loop
+// - volatile_strip_mined: a volatile read per chunk (StripMinedLoop)
+// - arena_strip_mined: a scope liveness test per chunk (StripMinedLoop)
+// The species are constants (static final), so the vector operations are intrinsified,
+// a species not supported by the CPU is emulated (slow) and is not a meaningful result.
+// $JAVA_HOME/bin/java --add-modules jdk.incubator.vector -jar target/benchmarks.jar StripMinedLoopBench
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StripMinedLoopBench {
+  private static final VectorSpecies<Integer> SPECIES_128 = IntVector.SPECIES_128;
+  private static final VectorSpecies<Integer> SPECIES_256 = IntVector.SPECIES_256;
+  private static final VectorSpecies<Integer> SPECIES_512 = IntVector.SPECIES_512;
+
+  // the time between a stop request and the end of the loop
+  private static final Duration TARGET_LATENCY = Duration.of(10, ChronoUnit.MICROS);
+
+  private final int[] array = new Random(0).ints(1_000_000).toArray();
+
+  volatile boolean volatile_stop;
+
+  @CompilerControl(CompilerControl.Mode.INLINE)
+  private static int sum(VectorSpecies<Integer> species, int[] array, int start, int end) {
+    var acc = IntVector.zero(species);
+    var i = start;
+    for(var bound = start + species.loopBound(end - start); i < bound; i += species.length()) {
+      acc = acc.add(IntVector.fromArray(species, array, i));
+    }
+    var sum = acc.reduceLanes(VectorOperators.ADD);
+    for(; i < end; i++) {
+      sum += array[i];
+    }
+    return sum;
+  }
+
+  @CompilerControl(CompilerControl.Mode.INLINE)
+  private int sumVolatile(VectorSpecies<Integer> species) {
+    var acc = IntVector.zero(species);
+    var i = 0;
+    for(var bound = species.loopBound(array.length); i < bound; i += species.length()) {
+      if (volatile_stop) {
+        return acc.reduceLanes(VectorOperators.ADD);  // stopped, the tail is not summed
+      }
+      acc = acc.add(IntVector.fromArray(species, array, i));
+    }
+    var sum = acc.reduceLanes(VectorOperators.ADD);
+    for(; i < array.length; i++) {
+      sum += array[i];
+    }
+    return sum;
+  }
+
+  // the kernels are allocated once and reused, the sum of a chunk is computed in a local variable
+  // and added to the accumulator once per chunk, one kernel class per species so the species is a constant
+  private abstract static class Accumulator implements StripMinedLoop.Kernel {
+    final int[] array;
+    int sum;
+
+    Accumulator(int[] array) {
+      this.array = array;
+      super();
+    }
+  }
+
+  private static final class Sum128 extends Accumulator {
+    Sum128(int[] array) {
+      super(array);
+    }
+
+    @Override
+    public void run(int start, int end) {
+      sum += sum(SPECIES_128, array, start, end);
+    }
+  }
+
+  private static final class Sum256 extends Accumulator {
+    Sum256(int[] array) {
+      super(array);
+    }
+
+    @Override
+    public void run(int start, int end) {
+      sum += sum(SPECIES_256, array, start, end);
+    }
+  }
+
+  private static final class Sum512 extends Accumulator {
+    Sum512(int[] array) {
+      super(array);
+    }
+
+    @Override
+    public void run(int start, int end) {
+      sum += sum(SPECIES_512, array, start, end);
+    }
+  }
+
+  @CompilerControl(CompilerControl.Mode.INLINE)
+  private int stripMined(StripMinedLoop loop, Accumulator accumulator) {
+    accumulator.sum = 0;
+    loop.run(array.length, accumulator);
+    return accumulator.sum;
+  }
+
+
+  @Benchmark
+  public int no_stop_128() {
+    return sum(SPECIES_128, array, 0, array.length);
+  }
+
+  @Benchmark
+  public int volatile_each_iteration_128() {
+    return sumVolatile(SPECIES_128);
+  }
+
+  private final Sum128 sum128 = new Sum128(array);
+  private final StripMinedLoop volatile_loop_128 =
+      new StripMinedLoop(StopToken.ofVolatile(), TARGET_LATENCY, SPECIES_128.length());
+
+  @Benchmark
+  public int volatile_strip_mined_128() {
+    return stripMined(volatile_loop_128, sum128);
+  }
+
+  private final StripMinedLoop arena_loop_128 =
+      new StripMinedLoop(StopToken.ofArena(), TARGET_LATENCY, SPECIES_128.length());
+
+  @Benchmark
+  public int arena_strip_mined_128() {
+    return stripMined(arena_loop_128, sum128);
+  }
+
+
+  @Benchmark
+  public int no_stop_256() {
+    return sum(SPECIES_256, array, 0, array.length);
+  }
+
+  @Benchmark
+  public int volatile_each_iteration_256() {
+    return sumVolatile(SPECIES_256);
+  }
+
+  private final Sum256 sum256 = new Sum256(array);
+  private final StripMinedLoop volatile_loop_256 =
+      new StripMinedLoop(StopToken.ofVolatile(), TARGET_LATENCY, SPECIES_256.length());
+
+  @Benchmark
+  public int volatile_strip_mined_256() {
+    return stripMined(volatile_loop_256, sum256);
+  }
+
+  private final StripMinedLoop arena_loop_256 =
+      new StripMinedLoop(StopToken.ofArena(), TARGET_LATENCY, SPECIES_256.length());
+
+  @Benchmark
+  public int arena_strip_mined_256() {
+    return stripMined(arena_loop_256, sum256);
+  }
+
+
+  @Benchmark
+  public int no_stop_512() {
+    return sum(SPECIES_512, array, 0, array.length);
+  }
+
+  @Benchmark
+  public int volatile_each_iteration_512() {
+    return sumVolatile(SPECIES_512);
+  }
+
+  private final Sum512 sum512 = new Sum512(array);
+  private final StripMinedLoop volatile_loop_512 =
+      new StripMinedLoop(StopToken.ofVolatile(), TARGET_LATENCY, SPECIES_512.length());
+
+  @Benchmark
+  public int volatile_strip_mined_512() {
+    return stripMined(volatile_loop_512, sum512);
+  }
+
+  private final StripMinedLoop arena_loop_512 =
+      new StripMinedLoop(StopToken.ofArena(), TARGET_LATENCY, SPECIES_512.length());
+
+  @Benchmark
+  public int arena_strip_mined_512() {
+    return stripMined(arena_loop_512, sum512);
+  }
+}
@@ -29,7 +29,6 @@ import java.util.concurrent.locks.ReentrantLock;
 // ThreadStopBench.stop_synchronized    avgt    5  5,597 ± 0,055  ns/op
 // ThreadStopBench.stop_volatile        avgt    5  0,513 ± 0,001  ns/op
 
-/*
 // $JAVA_HOME/bin/java -jar target/benchmarks.jar -prof dtraceasm
 @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
@@ -103,20 +102,20 @@ public class ThreadStopBench {
   }
 
 
-//  static final class Stop extends MutableCallSite {
-//    public Stop() {
-//      super(MethodType.methodType(boolean.class));
-//      setTarget(MethodHandles.constant(boolean.class, false));
-//    }
-//  }
-//
-//  static final Stop STOP = new Stop();
-//  static final MethodHandle STOP_MH = STOP.dynamicInvoker();
-//
-//  @Benchmark
-//  public boolean stop_callsite() throws Throwable {
-//    return (boolean) STOP_MH.invokeExact();
-//  }
+  static final class Stop extends MutableCallSite {
+    public Stop() {
+      super(MethodType.methodType(boolean.class));
+      setTarget(MethodHandles.constant(boolean.class, false));
+    }
+  }
+
+  static final Stop STOP = new Stop();
+  static final MethodHandle STOP_MH = STOP.dynamicInvoker();
+
+  @Benchmark
+  public boolean stop_callsite() throws Throwable {
+    return (boolean) STOP_MH.invokeExact();
+  }
 
 
   final Arena arena = Arena.ofShared();
@@ -127,7 +126,3 @@ public class ThreadStopBench {
     return !scope.isAlive();
   }
 }
-*/
-
-
-
@@ -0,0 +1,151 @@
+package com.github.forax.threadstop.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Same checks as ThreadStopBench but several readers poll the same flag while a writer
+// sometimes touches it (writes false, so nobody stops).
+// The number of readers can be changed with -tg, by example with 63 readers
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar ThreadStopContendedBench -tg 63,1
+//
+// There is no writer for the arena, the arena can only be closed once,
+// and no interrupt variant, the interrupt status is per thread.
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Group)
+public class ThreadStopContendedBench {
+  private static final int READERS = 7;
+
+  // writes are rare compared to the reads
+  private static void pause() {
+    Blackhole.consumeCPU(1_000);
+  }
+
+
+  boolean synchronized_stop;
+  final Object synchronized_lock = new Object();
+
+  @Benchmark
+  @Group("stop_synchronized")
+  @GroupThreads(READERS)
+  public boolean stop_synchronized_reader() {
+    synchronized (synchronized_lock) {
+      return synchronized_stop;
+    }
+  }
+
+  @Benchmark
+  @Group("stop_synchronized")
+  @GroupThreads(1)
+  public void stop_synchronized_writer() {
+    pause();
+    synchronized (synchronized_lock) {
+      synchronized_stop = false;
+    }
+  }
+
+
+  boolean reentrant_lock_stop;
+  final ReentrantLock reentrant_lock = new ReentrantLock();
+
+  @Benchmark
+  @Group("stop_reentrant_lock")
+  @GroupThreads(READERS)
+  public boolean stop_reentrant_lock_reader() {
+    reentrant_lock.lock();
+    try {
+      return reentrant_lock_stop;
+    } finally {
+      reentrant_lock.unlock();
+    }
+  }
+
+  @Benchmark
+  @Group("stop_reentrant_lock")
+  @GroupThreads(1)
+  public void stop_reentrant_lock_writer() {
+    pause();
+    reentrant_lock.lock();
+    try {
+      reentrant_lock_stop = false;
+    } finally {
+      reentrant_lock.unlock();
+    }
+  }
+
+
+  volatile boolean volatile_stop;
+
+  @Benchmark
+  @Group("stop_volatile")
+  @GroupThreads(READERS)
+  public boolean stop_volatile_reader() {
+    return volatile_stop;
+  }
+
+  @Benchmark
+  @Group("stop_volatile")
+  @GroupThreads(1)
+  public void stop_volatile_writer() {
+    pause();
+    volatile_stop = false;
+  }
+
+
+  boolean opaque_stop;
+  static final VarHandle OPAQUE_STOP;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      OPAQUE_STOP = lookup.findVarHandle(ThreadStopContendedBench.class, "opaque_stop", boolean.class);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Benchmark
+  @Group("stop_opaque")
+  @GroupThreads(READERS)
+  public boolean stop_opaque_reader() {
+    return (boolean) OPAQUE_STOP.getOpaque(this);
+  }
+
+  @Benchmark
+  @Group("stop_opaque")
+  @GroupThreads(1)
+  public void stop_opaque_writer() {
+    pause();
+    OPAQUE_STOP.setOpaque(this, false);
+  }
+
+
+  final Arena arena = Arena.ofShared();
+  final MemorySegment.Scope scope = arena.scope();
+
+  @Benchmark
+  @Group("stop_arena")
+  @GroupThreads(READERS)
+  public boolean stop_arena_reader() {
+    return !scope.isAlive();
+  }
+}
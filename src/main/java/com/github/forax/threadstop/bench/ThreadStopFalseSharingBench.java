@@ -0,0 +1,165 @@
+package com.github.forax.threadstop.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+// Several readers poll the stop flag while a writer increments an unrelated counter,
+// either next to the flag (adjacent, same cache line) or separated by some padding (padded).
+// The number of readers can be changed with -tg, by example with 63 readers
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar ThreadStopFalseSharingBench -tg 63,1
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ThreadStopFalseSharingBench {
+  private static final int READERS = 7;
+
+  @State(Scope.Group)
+  public static class Adjacent {
+    volatile boolean volatile_stop;
+    boolean opaque_stop;
+    final MemorySegment.Scope scope = Arena.ofShared().scope();
+    volatile long counter;
+
+    static final VarHandle OPAQUE_STOP;
+    static {
+      var lookup = MethodHandles.lookup();
+      try {
+        OPAQUE_STOP = lookup.findVarHandle(Adjacent.class, "opaque_stop", boolean.class);
+      } catch (NoSuchFieldException | IllegalAccessException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  // the fields of the super classes are laid out first
+  static class PaddingBefore {
+    long p01, p02, p03, p04, p05, p06, p07, p08, p09, p10, p11, p12, p13, p14, p15, p16;
+  }
+  static class Flags extends PaddingBefore {
+    volatile boolean volatile_stop;
+    boolean opaque_stop;
+    final MemorySegment.Scope scope = Arena.ofShared().scope();
+  }
+  static class PaddingAfter extends Flags {
+    long p17, p18, p19, p20, p21, p22, p23, p24, p25, p26, p27, p28, p29, p30, p31, p32;
+  }
+
+  @State(Scope.Group)
+  public static class Padded extends PaddingAfter {
+    volatile long counter;
+
+    static final VarHandle OPAQUE_STOP;
+    static {
+      var lookup = MethodHandles.lookup();
+      try {
+        OPAQUE_STOP = lookup.findVarHandle(Flags.class, "opaque_stop", boolean.class);
+      } catch (NoSuchFieldException | IllegalAccessException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+
+  @Benchmark
+  @Group("stop_volatile_adjacent")
+  @GroupThreads(READERS)
+  public boolean stop_volatile_adjacent_reader(Adjacent state) {
+    return state.volatile_stop;
+  }
+
+  @Benchmark
+  @Group("stop_volatile_adjacent")
+  @GroupThreads(1)
+  public void stop_volatile_adjacent_writer(Adjacent state) {
+    state.counter++;
+  }
+
+  @Benchmark
+  @Group("stop_volatile_padded")
+  @GroupThreads(READERS)
+  public boolean stop_volatile_padded_reader(Padded state) {
+    return state.volatile_stop;
+  }
+
+  @Benchmark
+  @Group("stop_volatile_padded")
+  @GroupThreads(1)
+  public void stop_volatile_padded_writer(Padded state) {
+    state.counter++;
+  }
+
+
+  @Benchmark
+  @Group("stop_opaque_adjacent")
+  @GroupThreads(READERS)
+  public boolean stop_opaque_adjacent_reader(Adjacent state) {
+    return (boolean) Adjacent.OPAQUE_STOP.getOpaque(state);
+  }
+
+  @Benchmark
+  @Group("stop_opaque_adjacent")
+  @GroupThreads(1)
+  public void stop_opaque_adjacent_writer(Adjacent state) {
+    state.counter++;
+  }
+
+  @Benchmark
+  @Group("stop_opaque_padded")
+  @GroupThreads(READERS)
+  public boolean stop_opaque_padded_reader(Padded state) {
+    return (boolean) Padded.OPAQUE_STOP.getOpaque(state);
+  }
+
+  @Benchmark
+  @Group("stop_opaque_padded")
+  @GroupThreads(1)
+  public void stop_opaque_padded_writer(Padded state) {
+    state.counter++;
+  }
+
+
+  @Benchmark
+  @Group("stop_arena_adjacent")
+  @GroupThreads(READERS)
+  public boolean stop_arena_adjacent_reader(Adjacent state) {
+    return !state.scope.isAlive();
+  }
+
+  @Benchmark
+  @Group("stop_arena_adjacent")
+  @GroupThreads(1)
+  public void stop_arena_adjacent_writer(Adjacent state) {
+    state.counter++;
+  }
+
+  @Benchmark
+  @Group("stop_arena_padded")
+  @GroupThreads(READERS)
+  public boolean stop_arena_padded_reader(Padded state) {
+    return !state.scope.isAlive();
+  }
+
+  @Benchmark
+  @Group("stop_arena_padded")
+  @GroupThreads(1)
+  public void stop_arena_padded_writer(Padded state) {
+    state.counter++;
+  }
+}
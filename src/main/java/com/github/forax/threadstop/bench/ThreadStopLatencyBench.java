@@ -0,0 +1,284 @@
+package com.github.forax.threadstop.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.VarHandle;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The other benchmarks measure the cost of the check when nobody stops the loop,
+// this one measures the time between the stop request and the end of the loops
+// (the threads running the loops are joined).
+// threads: "1", "cores" (one thread per core), "oversubscribed" (4 threads per core)
+
+// $JAVA_HOME/bin/java -jar target/benchmarks.jar ThreadStopLatencyBench
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ThreadStopLatencyBench {
+  private final int[] array = new Random(0).ints(10_000).toArray();
+
+  @Param({"synchronized", "reentrant_lock", "interrupt", "volatile", "opaque", "callsite", "arena"})
+  String strategy;
+
+  @Param({"1", "cores", "oversubscribed"})
+  String threads;
+
+  private Thread[] loopThreads;
+
+  @Setup(Level.Invocation)
+  public void startLoops() throws InterruptedException {
+    var cores = Runtime.getRuntime().availableProcessors();
+    var threadCount = switch (threads) {
+      case "1" -> 1;
+      case "cores" -> cores;
+      case "oversubscribed" -> 4 * cores;
+      default -> throw new AssertionError("unknown threads " + threads);
+    };
+    Runnable loop = switch (strategy) {
+      case "synchronized" -> {
+        synchronized_stop = false;
+        yield this::loop_synchronized;
+      }
+      case "reentrant_lock" -> {
+        reentrant_lock_stop = false;
+        yield this::loop_reentrant_lock;
+      }
+      case "interrupt" -> this::loop_interrupt;
+      case "volatile" -> {
+        volatile_stop = false;
+        yield this::loop_volatile;
+      }
+      case "opaque" -> {
+        OPAQUE_STOP.setOpaque(this, false);
+        yield this::loop_opaque;
+      }
+      case "callsite" -> {
+        STOP.setTarget(MethodHandles.constant(boolean.class, false));
+        MutableCallSite.syncAll(new MutableCallSite[] { STOP });
+        yield this::loop_callsite;
+      }
+      case "arena" -> {
+        arena = Arena.ofShared();
+        scope = arena.scope();
+        yield this::loop_arena;
+      }
+      default -> throw new AssertionError("unknown strategy " + strategy);
+    };
+    var started = new CountDownLatch(threadCount);
+    loopThreads = new Thread[threadCount];
+    for(var i = 0; i < threadCount; i++) {
+      loopThreads[i] = Thread.ofPlatform().start(() -> {
+        started.countDown();
+        loop.run();
+      });
+    }
+    started.await();
+  }
+
+  @TearDown(Level.Invocation)
+  public void checkLoops() {
+    for(var thread : loopThreads) {
+      if (thread.isAlive()) {
+        throw new AssertionError("loop not stopped");
+      }
+    }
+  }
+
+  @Benchmark
+  public void stop() throws InterruptedException {
+    switch (strategy) {
+      case "synchronized" -> {
+        synchronized (synchronized_lock) {
+          synchronized_stop = true;
+        }
+      }
+      case "reentrant_lock" -> {
+        reentrant_lock.lock();
+        try {
+          reentrant_lock_stop = true;
+        } finally {
+          reentrant_lock.unlock();
+        }
+      }
+      case "interrupt" -> {
+        for(var thread : loopThreads) {
+          thread.interrupt();
+        }
+      }
+      case "volatile" -> volatile_stop = true;
+      case "opaque" -> OPAQUE_STOP.setOpaque(this, true);
+      case "callsite" -> {
+        STOP.setTarget(MethodHandles.constant(boolean.class, true));
+        MutableCallSite.syncAll(new MutableCallSite[] { STOP });
+      }
+      case "arena" -> arena.close();
+      default -> throw new AssertionError("unknown strategy " + strategy);
+    }
+    for(var thread : loopThreads) {
+      thread.join();
+    }
+  }
+
+
+  boolean synchronized_stop;
+  final Object synchronized_lock = new Object();
+
+  private int loop_synchronized() {
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        synchronized (synchronized_lock) {
+          if (synchronized_stop) {
+            return sum;
+          }
+        }
+        sum += array[i];
+      }
+    }
+  }
+
+
+  boolean reentrant_lock_stop;
+  final ReentrantLock reentrant_lock = new ReentrantLock();
+
+  private int loop_reentrant_lock() {
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        reentrant_lock.lock();
+        try {
+          if (reentrant_lock_stop) {
+            return sum;
+          }
+        } finally {
+          reentrant_lock.unlock();
+        }
+        sum += array[i];
+      }
+    }
+  }
+
+
+  private int loop_interrupt() {
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        if (Thread.interrupted()) {
+          return sum;
+        }
+        sum += array[i];
+      }
+    }
+  }
+
+
+  volatile boolean volatile_stop;
+
+  private int loop_volatile() {
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        if (volatile_stop) {
+          return sum;
+        }
+        sum += array[i];
+      }
+    }
+  }
+
+
+  boolean opaque_stop;
+  static final VarHandle OPAQUE_STOP;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      OPAQUE_STOP = lookup.findVarHandle(ThreadStopLatencyBench.class, "opaque_stop", boolean.class);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private int loop_opaque() {
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        if ((boolean) OPAQUE_STOP.getOpaque(this)) {
+          return sum;
+        }
+        sum += array[i];
+      }
+    }
+  }
+
+
+  static final class Stop extends MutableCallSite {
+    public Stop() {
+      super(MethodType.methodType(boolean.class));
+      setTarget(MethodHandles.constant(boolean.class, false));
+    }
+  }
+
+  static final Stop STOP = new Stop();
+  static final MethodHandle STOP_MH = STOP.dynamicInvoker();
+
+  private int loop_callsite() {
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        boolean stop;
+        try {
+          stop = (boolean) STOP_MH.invokeExact();
+        } catch (RuntimeException | Error e) {
+          throw e;
+        } catch (Throwable e) {
+          throw new AssertionError(e);
+        }
+        if (stop) {
+          return sum;
+        }
+        sum += array[i];
+      }
+    }
+  }
+
+
+  Arena arena;
+  MemorySegment.Scope scope;
+
+  private int loop_arena() {
+    var scope = this.scope;
+    var sum = 0;
+    for(;;) {
+      for(var i = 0; i < array.length; i++) {
+        if (!scope.isAlive()) {
+          return sum;
+        }
+        sum += array[i];
+      }
+    }
+  }
+}
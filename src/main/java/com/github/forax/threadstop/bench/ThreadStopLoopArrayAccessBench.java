@@ -1,5 +1,9 @@
 package com.github.forax.threadstop.bench;
 
+import com.github.forax.threadstop.StopToken;
+import com.github.forax.threadstop.Stoppable;
+import com.github.forax.threadstop.Stoppables;
+
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -12,6 +16,7 @@ import org.openjdk.jmh.annotations.Warmup;
 
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.invoke.MutableCallSite;
@@ -41,6 +46,7 @@ import java.util.concurrent.locks.ReentrantLock;
 // ThreadStopLoopArrayAccessBench.stop_volatile        avgt    5    81.710 ±  0.236  us/op
 
 // $JAVA_HOME/bin/java -jar target/benchmarks.jar -prof dtraceasm
+// on Linux: $JAVA_HOME/bin/java -cp target/benchmarks.jar com.github.forax.threadstop.tool.JitDiagnostics ThreadStopLoopArrayAccessBench
 @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
 @Fork(value = 1)
@@ -158,20 +164,20 @@ public class ThreadStopLoopArrayAccessBench {
     }
   }
 
-//  static final Stop STOP = new Stop();
-//  static final MethodHandle STOP_MH = STOP.dynamicInvoker();
-//
-//  @Benchmark
-//  public int stop_callsite() throws Throwable {
-//    var sum = 0;
-//    for(var i = 0; i < array.length; i++) {
-//      if ((boolean) STOP_MH.invokeExact()) {
-//        break;
-//      }
-//      sum += array[i];
-//    }
-//    return sum;
-//  }
+  static final Stop STOP = new Stop();
+  static final MethodHandle STOP_MH = STOP.dynamicInvoker();
+
+  @Benchmark
+  public int stop_callsite() throws Throwable {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if ((boolean) STOP_MH.invokeExact()) {
+        break;
+      }
+      sum += array[i];
+    }
+    return sum;
+  }
 
 
   final Arena arena = Arena.ofShared();
@@ -188,8 +194,22 @@ public class ThreadStopLoopArrayAccessBench {
     }
     return sum;
   }
-}
 
 
+  // the stop check is inserted by StoppableClassRewriter
+  final StopToken stoppable_token = StopToken.ofArena();
 
+  @Stoppable
+  int stoppable_loop() {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      sum += array[i];
+    }
+    return sum;
+  }
 
+  @Benchmark
+  public int stop_stoppable() {
+    return Stoppables.call(stoppable_token, this::stoppable_loop);
+  }
+}
@@ -29,7 +29,6 @@ import java.util.concurrent.locks.ReentrantLock;
 // ThreadStopLoopBench.stop_synchronized    avgt    5  559,514 ± 11,108  us/op
 // ThreadStopLoopBench.stop_volatile        avgt    5   52,746 ±  0,462  us/op
 
-/*
 // $JAVA_HOME/bin/java -jar target/benchmarks.jar -prof dtraceasm
 @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
@@ -147,20 +146,20 @@ public class ThreadStopLoopBench {
     }
   }
 
-//  static final Stop STOP = new Stop();
-//  static final MethodHandle STOP_MH = STOP.dynamicInvoker();
-//
-//  @Benchmark
-//  public int stop_callsite() throws Throwable {
-//    var sum = 0;
-//    for(var i = 0; i < array.length; i++) {
-//      if ((boolean) STOP_MH.invokeExact()) {
-//        break;
-//      }
-//      sum += i;
-//    }
-//    return sum;
-//  }
+  static final Stop STOP = new Stop();
+  static final MethodHandle STOP_MH = STOP.dynamicInvoker();
+
+  @Benchmark
+  public int stop_callsite() throws Throwable {
+    var sum = 0;
+    for(var i = 0; i < array.length; i++) {
+      if ((boolean) STOP_MH.invokeExact()) {
+        break;
+      }
+      sum += i;
+    }
+    return sum;
+  }
 
 
   final Arena arena = Arena.ofShared();
@@ -178,7 +177,3 @@ public class ThreadStopLoopBench {
     return sum;
   }
 }
- */
-
-
-
@@ -0,0 +1,358 @@
+package com.github.forax.threadstop.tool;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.TextResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.classfile.AnnotationValue;
+import java.lang.classfile.Attributes;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.ClassModel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Runs each strategy (each @Benchmark method) of a benchmark class with JMH and reports
+// how the JIT compiled its loop, so the difference between two strategies (e.g. stop_volatile vs stop_arena)
+// can be explained on Linux without running -prof dtraceasm by hand.
+// The disassembly comes from -prof perfasm if perf is installed, otherwise from PrintAssembly
+// restricted to the benchmark method (-XX:CompileCommand=print), both need hsdis in the JDK lib directory.
+// For each strategy, a JSON report <benchmark>.<strategy>.jdk-<version>.json and the disassembly
+// are written in the output directory, so two reports of two JDKs can be compared by a script.
+// The indicators are heuristics computed on the C2 code
+// - vectorized: an instruction uses a vector register or a packed (SIMD) instruction
+// - unrolled: the same memory access is repeated at 4 or more different offsets
+// - safepointPolls: the number of safepoint polls (not counting the polls at return),
+//   the polls are annotated even in a hex dump, so they are reported without hsdis
+// - stripMined: an innermost loop (a backward branch) has no poll but is nested in an outer loop
+//   that has one, i.e. the poll is only done every LoopStripMiningIter iterations
+// - pollInInnermostLoop: an innermost loop has a poll, i.e. the poll is done at each iteration
+// The values of LoopStripMiningIter and UseCountedLoopSafepoints are the ones of the forked VM
+// (-XX:+PrintFlagsFinal), they are reported as is.
+// A benchmark with parameters is run with the first value of each parameter.
+//
+// usage: JitDiagnostics [benchmark [directory [perfasm|printassembly]]]
+//   by default, benchmark is ThreadStopLoopArrayAccessBench and directory is target/diagnostics
+// $JAVA_HOME/bin/java -cp target/benchmarks.jar com.github.forax.threadstop.tool.JitDiagnostics
+public class JitDiagnostics {
+  private static final String BENCH_PACKAGE = "com.github.forax.threadstop.bench.";
+  private static final String BENCHMARK = "Lorg/openjdk/jmh/annotations/Benchmark;";
+  private static final String PARAM = "Lorg/openjdk/jmh/annotations/Param;";
+
+  private static final Pattern INSTRUCTION = Pattern.compile("0x(\\p{XDigit}+):\\s+([a-z][a-z0-9.]*)[ \\t]*([^;\\n]*)");
+  private static final Pattern VECTOR_OPERAND = Pattern.compile(
+      "%[yz]mm\\d+"                          // x86 AVX2/AVX-512 registers
+      + "|\\b[vz]\\d+\\.\\d*[bhsdq]\\b");    // aarch64 NEON/SVE registers with an arrangement
+  private static final Pattern PACKED_MNEMONIC = Pattern.compile(
+      "v?p(add|sub|mull?|and|or|xor|max[su]?|min[su]?)[bwdq]|v?movdq[au]\\d*|v?(add|sub|mul)p[sd]");
+  private static final Pattern BRANCH_MNEMONIC = Pattern.compile(
+      "j[a-z]+"                     // x86
+      + "|b(\\.[a-z]+)?|cbn?z|tbn?z");  // aarch64, not bl (a call)
+  private static final Pattern ADDRESS = Pattern.compile("0x(\\p{XDigit}+)");
+  private static final Pattern DISPLACEMENT = Pattern.compile("#?-?0x\\p{XDigit}+|#-?\\d+");
+  private static final Pattern POLL = Pattern.compile("\\{poll}");
+  private static final Pattern POLL_LINE = Pattern.compile("0x(\\p{XDigit}+):.*\\{poll}");
+  static final Pattern LOOP_STRIP_MINING_ITER = Pattern.compile("\\bLoopStripMiningIter\\s*=\\s*(\\d+)");
+  static final Pattern USE_COUNTED_LOOP_SAFEPOINTS =
+      Pattern.compile("\\bUseCountedLoopSafepoints\\s*=\\s*(true|false)");
+
+  record Indicators(boolean disassembly, boolean vectorized, boolean unrolled, int safepointPolls,
+                    boolean stripMined, boolean pollInInnermostLoop) {}
+
+  // a loop is the range of addresses between the target of a backward branch and the branch
+  record Loop(long start, long end) {
+    boolean contains(long address) {
+      return start <= address && address <= end;
+    }
+
+    boolean contains(Loop loop) {
+      return !equals(loop) && start <= loop.start && loop.end <= end;
+    }
+  }
+
+  // adds -XX:+PrintFlagsFinal to the forked VM and reports the flags related to the safepoint polls
+  public static final class FlagsProfiler implements ExternalProfiler {
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+      return List.of();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+      return List.of("-XX:+UnlockDiagnosticVMOptions", "-XX:+PrintFlagsFinal");
+    }
+
+    @Override
+    public void beforeTrial(BenchmarkParams benchmarkParams) {
+      // empty
+    }
+
+    @Override
+    public Collection<? extends Result> afterTrial(BenchmarkResult benchmarkResult, long pid, File stdOut, File stdErr) {
+      String output;
+      try(var lines = Files.lines(stdOut.toPath())) {
+        output = lines
+            .filter(line -> line.contains("LoopStripMiningIter") || line.contains("UseCountedLoopSafepoints"))
+            .collect(Collectors.joining("\n"));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return List.of(new TextResult(output, "flags"));
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+      return false;  // the ~900 lines of PrintFlagsFinal
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+      return true;
+    }
+
+    @Override
+    public String getDescription() {
+      return "flags of the forked VM related to the safepoint polls";
+    }
+  }
+
+  static void main(String[] args) throws IOException, RunnerException {
+    var benchmark = args.length > 0 ? args[0] : "ThreadStopLoopArrayAccessBench";
+    var directory = Path.of(args.length > 1 ? args[1] : "target/diagnostics");
+    var perfasm = args.length > 2 ? args[2].equals("perfasm") : isPerfAvailable();
+
+    // the class is parsed, not loaded, a benchmark may depend on a module (jdk.incubator.vector)
+    // that is only added to the forked VM
+    var classModel = ClassFile.of().parse(benchmarkBytecode(benchmark));
+    var strategies = classModel.methods().stream()
+        .filter(methodModel -> ScopedClassRewriter.isAnnotated(methodModel, BENCHMARK))
+        .map(methodModel -> methodModel.methodName().stringValue())
+        .sorted()
+        .toList();
+    var params = firstParamValues(classModel);
+    Files.createDirectories(directory);
+    for(var strategy : strategies) {
+      diagnose(benchmark, strategy, params, directory, perfasm);
+    }
+  }
+
+  private static byte[] benchmarkBytecode(String benchmark) throws IOException {
+    var resource = (BENCH_PACKAGE + benchmark).replace('.', '/') + ".class";
+    try(var input = JitDiagnostics.class.getClassLoader().getResourceAsStream(resource)) {
+      if (input == null) {
+        throw new IllegalArgumentException("unknown benchmark " + benchmark);
+      }
+      return input.readAllBytes();
+    }
+  }
+
+  private static boolean isPerfAvailable() {
+    try {
+      var process = new ProcessBuilder("perf", "--version")
+          .redirectErrorStream(true)
+          .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+          .start();
+      return process.waitFor() == 0;
+    } catch (IOException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static Map<String, String> firstParamValues(ClassModel classModel) {
+    var params = new LinkedHashMap<String, String>();
+    for(var fieldModel : classModel.fields()) {
+      fieldModel.findAttribute(Attributes.runtimeVisibleAnnotations()).stream()
+          .flatMap(attribute -> attribute.annotations().stream())
+          .filter(annotation -> annotation.className().equalsString(PARAM))
+          .flatMap(annotation -> annotation.elements().stream())
+          .filter(element -> element.name().equalsString("value"))
+          .forEach(element -> {
+            if (element.value() instanceof AnnotationValue.OfArray array
+                && !array.values().isEmpty()
+                && array.values().getFirst() instanceof AnnotationValue.OfString value) {
+              params.put(fieldModel.fieldName().stringValue(), value.stringValue());
+            }
+          });
+    }
+    return params;
+  }
+
+  private static void diagnose(String benchmark, String strategy, Map<String, String> params,
+                               Path directory, boolean perfasm) throws IOException, RunnerException {
+    var name = benchmark + "." + strategy + ".jdk-" + Runtime.version().feature();
+    var asmFile = directory.resolve(name + ".asm.txt");
+    var builder = new OptionsBuilder()
+        .include("\\." + Pattern.quote(benchmark + "." + strategy) + "$")
+        .warmupIterations(3)
+        .warmupTime(TimeValue.seconds(1))
+        .measurementIterations(3)
+        .measurementTime(TimeValue.seconds(1))
+        .forks(1)
+        .addProfiler(FlagsProfiler.class);
+    params.forEach(builder::param);
+    if (perfasm) {
+      builder.addProfiler("perfasm");
+    } else {
+      // prepend, so the jvmArgsAppend of the @Fork of the benchmark are kept
+      builder.jvmArgsPrepend(
+          "-XX:+UnlockDiagnosticVMOptions",
+          "-XX:+LogVMOutput",
+          "-XX:-DisplayVMOutput",
+          "-XX:LogFile=" + asmFile.toAbsolutePath(),
+          "-XX:CompileCommand=quiet",
+          "-XX:CompileCommand=print," + BENCH_PACKAGE + benchmark + "::" + strategy,
+          // the benchmark method is usually inlined in the loop of the generated stub
+          "-XX:CompileCommand=print,*." + benchmark + "_" + strategy + "_jmhTest::*");
+    }
+    var result = new Runner(builder.build()).run().iterator().next();
+
+    String asm;
+    if (perfasm) {
+      asm = result.getSecondaryResults().entrySet().stream()
+          .filter(entry -> entry.getKey().endsWith("asm"))
+          .map(entry -> entry.getValue().extendedInfo())
+          .collect(Collectors.joining("\n"));
+      Files.writeString(asmFile, asm);
+    } else {
+      asm = Files.exists(asmFile) ? Files.readString(asmFile) : "";
+    }
+    var indicators = analyze(perfasm ? asm : c2Sections(asm));
+
+    var flagsResult = result.getSecondaryResults().get("flags");
+    var flagsOutput = flagsResult == null ? "" : flagsResult.extendedInfo();
+    // with -XX:-DisplayVMOutput, the output of PrintFlagsFinal is in the log file, not on stdout
+    var flags = perfasm ? flagsOutput : flagsOutput + "\n" + asm;
+    var benchmarkParams = result.getParams();
+
+    var report = new LinkedHashMap<String, Object>();
+    report.put("benchmark", benchmark);
+    report.put("strategy", strategy);
+    report.put("params", params);
+    report.put("jdk", benchmarkParams.getJdkVersion());
+    report.put("vm", benchmarkParams.getVmName() + " " + benchmarkParams.getVmVersion());
+    report.put("arch", System.getProperty("os.arch"));
+    report.put("mode", perfasm ? "perfasm" : "printassembly");
+    addScore(report, result);
+    report.put("disassembly", indicators.disassembly());
+    report.put("vectorized", indicators.disassembly() ? indicators.vectorized() : null);
+    report.put("unrolled", indicators.disassembly() ? indicators.unrolled() : null);
+    report.put("safepointPolls", indicators.safepointPolls());
+    // the loops are found using the branches, so they are not available in a hex dump
+    report.put("stripMined", indicators.disassembly() ? indicators.stripMined() : null);
+    report.put("pollInInnermostLoop", indicators.disassembly() ? indicators.pollInInnermostLoop() : null);
+    report.put("loopStripMiningIter", flag(LOOP_STRIP_MINING_ITER, flags, Long::parseLong));
+    report.put("useCountedLoopSafepoints", flag(USE_COUNTED_LOOP_SAFEPOINTS, flags, Boolean::parseBoolean));
+
+    Files.writeString(directory.resolve(name + ".json"), toJSON(report) + "\n");
+    System.out.println(name + " " + toJSON(report));
+  }
+
+  private static void addScore(Map<String, Object> report, RunResult result) {
+    var primary = result.getPrimaryResult();
+    report.put("score", primary.getScore());
+    report.put("scoreError", primary.getScoreError());
+    report.put("scoreUnit", primary.getScoreUnit());
+  }
+
+  // returns null if the flag is not found
+  static <T> T flag(Pattern pattern, String flags, Function<String, T> parser) {
+    var matcher = pattern.matcher(flags);
+    return matcher.find() ? parser.apply(matcher.group(1)) : null;
+  }
+
+  // keeps only the code generated by C2, the code of the interpreter and of C1 is never vectorized
+  // and always has a safepoint poll in the loops
+  static String c2Sections(String log) {
+    return Arrays.stream(log.split("Compiled method \\("))
+        .filter(section -> section.startsWith("c2)"))
+        .collect(Collectors.joining("\n"));
+  }
+
+  static Indicators analyze(String asm) {
+    var disassembly = false;
+    var vectorized = false;
+    var offsetsByAccess = new HashMap<String, HashSet<String>>();
+    var loopEnds = new HashMap<Long, Long>();  // target of a backward branch -> last branch
+    var matcher = INSTRUCTION.matcher(asm);
+    while(matcher.find()) {
+      var address = Long.parseUnsignedLong(matcher.group(1), 16);
+      var mnemonic = matcher.group(2);
+      var operands = matcher.group(3).strip();
+      // a hex dump (no hsdis) only contains hexadecimal digits
+      disassembly |= mnemonic.chars().anyMatch(c -> c >= 'g' && c <= 'z');
+      vectorized |= PACKED_MNEMONIC.matcher(mnemonic).matches() || VECTOR_OPERAND.matcher(operands).find();
+      if ((operands.contains("(") || operands.contains("[")) && !operands.contains("sp")) {
+        var access = mnemonic + " " + DISPLACEMENT.matcher(operands).replaceAll("#");
+        offsetsByAccess.computeIfAbsent(access, _ -> new HashSet<>()).add(operands);
+      }
+      if (BRANCH_MNEMONIC.matcher(mnemonic).matches()) {
+        var target = ADDRESS.matcher(operands).results()
+            .map(result -> Long.parseUnsignedLong(result.group(1), 16))
+            .reduce((_, last) -> last);  // aarch64 cbz/tbz, the target is the last operand
+        if (target.isPresent() && Long.compareUnsigned(target.orElseThrow(), address) <= 0) {
+          loopEnds.merge(target.orElseThrow(), address, Math::max);
+        }
+      }
+    }
+    var unrolled = offsetsByAccess.values().stream()
+        .max(Comparator.comparingInt(HashSet::size))
+        .map(offsets -> offsets.size() >= 4)
+        .orElse(false);
+    var safepointPolls = (int) POLL.matcher(asm).results().count();
+
+    var loops = loopEnds.entrySet().stream()
+        .map(entry -> new Loop(entry.getKey(), entry.getValue()))
+        .toList();
+    var polls = POLL_LINE.matcher(asm).results()
+        .map(result -> Long.parseUnsignedLong(result.group(1), 16))
+        .toList();
+    var innermostLoops = loops.stream()
+        .filter(loop -> loops.stream().noneMatch(loop::contains))
+        .toList();
+    var stripMined = innermostLoops.stream()
+        .filter(inner -> polls.stream().noneMatch(inner::contains))
+        .anyMatch(inner -> loops.stream()
+            .anyMatch(outer -> outer.contains(inner)
+                && polls.stream().anyMatch(poll -> outer.contains(poll) && !inner.contains(poll))));
+    var pollInInnermostLoop = innermostLoops.stream()
+        .anyMatch(loop -> polls.stream().anyMatch(loop::contains));
+    return new Indicators(disassembly, disassembly && vectorized, disassembly && unrolled, safepointPolls,
+        disassembly && stripMined, disassembly && pollInInnermostLoop);
+  }
+
+  static String toJSON(Object value) {
+    return switch (value) {
+      case null -> "null";
+      case String s -> '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+      case Double d when d.isNaN() || d.isInfinite() -> "null";
+      case Number _, Boolean _ -> value.toString();
+      case Map<?, ?> map -> map.entrySet().stream()
+          .map(entry -> toJSON(entry.getKey().toString()) + ": " + toJSON(entry.getValue()))
+          .collect(Collectors.joining(", ", "{", "}"));
+      default -> throw new IllegalArgumentException("unsupported value " + value);
+    };
+  }
+}
@@ -0,0 +1,152 @@
+package com.github.forax.threadstop.tool;
+
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+
+// A java agent that does the same rewriting as ScopedClassRewriter when the classes are loaded,
+// so the classes of a jar that was not rewritten at build time are also rewritten.
+// The rewritten classes are cached on disk, the name of a file is the SHA-256 of the original class.
+// The cached classes are loaded into the VM, so the cache directory must be private:
+// it is created readable and writable only by its owner, and it is not used if it is owned
+// by another user or if another user can write in it (on POSIX file systems).
+// A cache entry starts with the hash of the original class and the hash of the rewritten class,
+// an entry that does not match (truncated, corrupted, etc.) is ignored and rewritten.
+//
+// usage: java -javaagent:target/benchmarks.jar[=cacheDirectory] ...
+//   by default, cacheDirectory is $HOME/.cache/scoped-agent
+public class ScopedAgent {
+  // only the classes that reference the annotation are parsed
+  private static final byte[] SCOPED = "Lcom/github/forax/threadstop/Scoped;".getBytes(StandardCharsets.UTF_8);
+
+  // two hexadecimal SHA-256 separated by a space and followed by a newline
+  private static final int HEADER_SIZE = 64 + 1 + 64 + 1;
+
+  public static void premain(String args, Instrumentation instrumentation) {
+    var cacheDirectory = args == null || args.isEmpty() ?
+        Path.of(System.getProperty("user.home"), ".cache", "scoped-agent") :
+        Path.of(args);
+    var cache = privateDirectory(cacheDirectory) ? cacheDirectory : null;
+    instrumentation.addTransformer(new ClassFileTransformer() {
+      @Override
+      public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                              ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        return ScopedAgent.transform(cache, className, classfileBuffer);
+      }
+    });
+  }
+
+  // returns the rewritten class or null if the class is loaded unchanged,
+  // cacheDirectory is null if there is no cache
+  static byte[] transform(Path cacheDirectory, String className, byte[] classfileBuffer) {
+    if (!contains(classfileBuffer, SCOPED)) {
+      return null;
+    }
+    try {
+      return cacheDirectory != null ?
+          rewrite(cacheDirectory, classfileBuffer) :
+          ScopedClassRewriter.transform(classfileBuffer);
+    } catch (IOException | RuntimeException | Error e) {
+      // an exception thrown by a transformer is logged by the VM but the stack trace is lost,
+      // the class is loaded unchanged
+      System.err.println("ScopedAgent: error while rewriting " + className);
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  // returns false if the directory can not be used as a cache
+  static boolean privateDirectory(Path directory) {
+    try {
+      var posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+      if (posix) {
+        Files.createDirectories(directory,
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+      } else {
+        Files.createDirectories(directory);
+      }
+      // a new file is owned by the current user
+      var probe = Files.createTempFile(directory, null, ".tmp");
+      try {
+        if (!Files.getOwner(directory).equals(Files.getOwner(probe))) {
+          System.err.println("ScopedAgent: cache " + directory + " is owned by another user, cache disabled");
+          return false;
+        }
+      } finally {
+        Files.delete(probe);
+      }
+      if (posix) {
+        var permissions = Files.getFileAttributeView(directory, PosixFileAttributeView.class)
+            .readAttributes().permissions();
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+          System.err.println("ScopedAgent: cache " + directory + " is writable by other users, cache disabled");
+          return false;
+        }
+      }
+      return true;
+    } catch (IOException e) {
+      System.err.println("ScopedAgent: cache " + directory + " is not usable, cache disabled (" + e + ")");
+      return false;
+    }
+  }
+
+  static byte[] rewrite(Path cacheDirectory, byte[] bytecode) throws IOException {
+    var hash = ScopedClassRewriter.hash(bytecode);
+    var cacheFile = cacheDirectory.resolve(hash + ".class");
+    if (Files.exists(cacheFile)) {
+      var newBytecode = readEntry(cacheFile, hash);
+      if (newBytecode != null) {
+        return newBytecode;
+      }
+    }
+    var newBytecode = ScopedClassRewriter.transform(bytecode);
+    if (newBytecode == null) {  // already rewritten
+      return null;
+    }
+    // several VMs may share the cache, so the file is written then atomically renamed,
+    // a temporary file is only readable and writable by its owner
+    var header = hash + " " + ScopedClassRewriter.hash(newBytecode) + "\n";
+    var entry = new byte[HEADER_SIZE + newBytecode.length];
+    System.arraycopy(header.getBytes(StandardCharsets.US_ASCII), 0, entry, 0, HEADER_SIZE);
+    System.arraycopy(newBytecode, 0, entry, HEADER_SIZE, newBytecode.length);
+    var tmpFile = Files.createTempFile(cacheDirectory, null, ".tmp");
+    Files.write(tmpFile, entry);
+    Files.move(tmpFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    return newBytecode;
+  }
+
+  // returns null if the entry is not valid
+  static byte[] readEntry(Path cacheFile, String hash) throws IOException {
+    var entry = Files.readAllBytes(cacheFile);
+    if (entry.length <= HEADER_SIZE) {
+      return null;
+    }
+    var header = new String(entry, 0, HEADER_SIZE, StandardCharsets.US_ASCII);
+    var newBytecode = Arrays.copyOfRange(entry, HEADER_SIZE, entry.length);
+    if (!header.equals(hash + " " + ScopedClassRewriter.hash(newBytecode) + "\n")) {
+      return null;
+    }
+    return newBytecode;
+  }
+
+  private static boolean contains(byte[] bytes, byte[] pattern) {
+    loop: for(var i = 0; i <= bytes.length - pattern.length; i++) {
+      for(var j = 0; j < pattern.length; j++) {
+        if (bytes[i + j] != pattern[j]) {
+          continue loop;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+}
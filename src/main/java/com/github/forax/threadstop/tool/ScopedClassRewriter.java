@@ -0,0 +1,170 @@
+package com.github.forax.threadstop.tool;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.classfile.Annotation;
+import java.lang.classfile.Attributes;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.ClassModel;
+import java.lang.classfile.MethodModel;
+import java.lang.classfile.attribute.RuntimeVisibleAnnotationsAttribute;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+// Adds jdk.internal.misc.ScopeMemoryAccess$Scoped to all the methods annotated with
+// com.github.forax.threadstop.Scoped of all the classes of a directory.
+// The classes are rewritten in parallel, the hash of each class is stored in a cache file
+// so a class that has not changed since the last run is not parsed again.
+// Rewriting a class twice is a no-op, so the cache is only an optimization.
+//
+// usage: ScopedClassRewriter [directory [cacheFile]]
+//   by default, directory is target/classes and cacheFile is target/scoped-rewriter.cache
+public class ScopedClassRewriter {
+  private static final String SCOPED = "Lcom/github/forax/threadstop/Scoped;";
+  private static final String JDK_SCOPED = "Ljdk/internal/misc/ScopeMemoryAccess$Scoped;";
+
+  static void main(String[] args) throws IOException {
+    var directory = Path.of(args.length > 0 ? args[0] : "target/classes");
+    var cacheFile = Path.of(args.length > 1 ? args[1] : "target/scoped-rewriter.cache");
+    rewriteDirectory(directory, cacheFile, ScopedClassRewriter::transform);
+  }
+
+  // rewrites all the classes of a directory in parallel, transform returns null if a class is unchanged
+  static void rewriteDirectory(Path directory, Path cacheFile, UnaryOperator<byte[]> transform) throws IOException {
+    var cache = loadCache(cacheFile);
+    var newCache = new ConcurrentHashMap<String, String>();
+    var rewritten = new AtomicInteger();
+    try(var paths = Files.walk(directory)) {
+      paths
+          .filter(path -> path.toString().endsWith(".class"))
+          .parallel()
+          .forEach(path -> {
+            var key = directory.relativize(path).toString();
+            try {
+              var bytecode = Files.readAllBytes(path);
+              var hash = hash(bytecode);
+              if (!hash.equals(cache.get(key))) {
+                var newBytecode = transform.apply(bytecode);
+                if (newBytecode != null) {
+                  Files.write(path, newBytecode);
+                  hash = hash(newBytecode);
+                  rewritten.incrementAndGet();
+                  System.out.println(path + " rewritten");
+                }
+              }
+              newCache.put(key, hash);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    saveCache(cacheFile, newCache);
+    System.out.println(rewritten.get() + " class(es) rewritten, " + newCache.size() + " class(es) scanned");
+  }
+
+  private static Map<String, String> loadCache(Path cacheFile) throws IOException {
+    if (!Files.exists(cacheFile)) {
+      return Map.of();
+    }
+    var properties = new Properties();
+    try(Reader reader = Files.newBufferedReader(cacheFile)) {
+      properties.load(reader);
+    }
+    var cache = new HashMap<String, String>();
+    for(var name : properties.stringPropertyNames()) {
+      cache.put(name, properties.getProperty(name));
+    }
+    return cache;
+  }
+
+  private static void saveCache(Path cacheFile, Map<String, String> cache) throws IOException {
+    var properties = new Properties();
+    properties.putAll(cache);
+    try(Writer writer = Files.newBufferedWriter(cacheFile)) {
+      properties.store(writer, "class -> SHA-256");
+    }
+  }
+
+  static String hash(byte[] bytecode) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+    return HexFormat.of().formatHex(digest.digest(bytecode));
+  }
+
+  static boolean isAnnotated(MethodModel methodModel, String annotationName) {
+    return methodModel.findAttribute(Attributes.runtimeVisibleAnnotations())
+        .map(attribute -> attribute.annotations().stream().anyMatch(a -> a.className().equalsString(annotationName)))
+        .orElse(false);
+  }
+
+  private static boolean needRewrite(ClassModel classModel) {
+    return classModel.methods().stream()
+        .anyMatch(methodModel -> isAnnotated(methodModel, SCOPED) && !isAnnotated(methodModel, JDK_SCOPED));
+  }
+
+  /**
+   * Rewrites the bytecode of a class.
+   * @param bytecode the bytecode of a class.
+   * @return the rewritten bytecode or null if the class has no method to rewrite.
+   */
+  static byte[] transform(byte[] bytecode) {
+    var classFile = ClassFile.of();
+    var classModel = classFile.parse(bytecode);
+    if (!needRewrite(classModel)) {
+      return null;
+    }
+    if (classModel.majorVersion() > Runtime.version().feature() + 44) {
+      throw new AssertionError("unknown bytecode version " + classModel.majorVersion());
+    }
+    var newBytecode = classFile.transformClass(classModel, (classBuilder, classElement) -> {
+      switch (classElement) {
+        case MethodModel methodModel -> {
+          classBuilder.transformMethod(methodModel, (methodBuilder, methodElement) -> {
+            switch (methodElement) {
+              case RuntimeVisibleAnnotationsAttribute annotationsAttribute -> {
+                var annotations = annotationsAttribute.annotations();
+                if (annotations.stream().noneMatch(a -> a.className().equalsString(SCOPED)) ||
+                    annotations.stream().anyMatch(a -> a.className().equalsString(JDK_SCOPED))) {
+                  methodBuilder.with(annotationsAttribute);
+                  return;
+                }
+                var newAnnotations = new ArrayList<>(annotations);
+                var cp = classBuilder.constantPool();
+                newAnnotations.add(Annotation.of(cp.utf8Entry(JDK_SCOPED)));
+                var newAttribute = RuntimeVisibleAnnotationsAttribute.of(newAnnotations);
+                methodBuilder.with(newAttribute);
+              }
+              default -> methodBuilder.with(methodElement);
+            }
+          });
+        }
+        default -> classBuilder.with(classElement);
+      }
+    });
+
+    var errors = classFile.verify(newBytecode);
+    if (!errors.isEmpty()) {
+      throw new AssertionError("error while rewriting " + classModel.thisClass().asInternalName() + " " + errors);
+    }
+    return newBytecode;
+  }
+}
@@ -0,0 +1,140 @@
+package com.github.forax.threadstop.tool;
+
+import java.io.IOException;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.ClassTransform;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.CodeElement;
+import java.lang.classfile.CodeModel;
+import java.lang.classfile.CodeTransform;
+import java.lang.classfile.Label;
+import java.lang.classfile.MethodModel;
+import java.lang.classfile.TypeKind;
+import java.lang.classfile.instruction.BranchInstruction;
+import java.lang.classfile.instruction.InvokeInstruction;
+import java.lang.classfile.instruction.LabelTarget;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.lang.constant.ConstantDescs.CD_boolean;
+
+// Inserts a stop check at the start of each loop of the methods annotated with
+// com.github.forax.threadstop.Stoppable of all the classes of a directory.
+//
+// The scope of the current stop token is loaded once at the start of the method
+//   var scope = Stoppables.currentScope();
+// and a loop header (the target of a back-edge) becomes
+//   if (!scope.isAlive()) { throw Stoppables.stopped(); }
+// The scope is loop invariant and isAlive() is not a volatile read, so the check is hoisted
+// out of the loop by the JIT like in ThreadStopLoopArrayAccessBench.stop_arena, the loop is still vectorized.
+//
+// usage: StoppableClassRewriter [directory [cacheFile]]
+//   by default, directory is target/classes and cacheFile is target/stoppable-rewriter.cache
+public class StoppableClassRewriter {
+  private static final String STOPPABLE = "Lcom/github/forax/threadstop/Stoppable;";
+  private static final ClassDesc STOPPABLES = ClassDesc.of("com.github.forax.threadstop.Stoppables");
+  private static final ClassDesc STOPPED_EXCEPTION = ClassDesc.of("com.github.forax.threadstop.StoppedException");
+  private static final ClassDesc SCOPE = ClassDesc.of("java.lang.foreign.MemorySegment$Scope");
+
+  static void main(String[] args) throws IOException {
+    var directory = Path.of(args.length > 0 ? args[0] : "target/classes");
+    var cacheFile = Path.of(args.length > 1 ? args[1] : "target/stoppable-rewriter.cache");
+    ScopedClassRewriter.rewriteDirectory(directory, cacheFile, StoppableClassRewriter::transform);
+  }
+
+  // a method already rewritten starts with a call to Stoppables.currentScope()
+  private static boolean isRewritten(MethodModel methodModel) {
+    return methodModel.code()
+        .map(codeModel -> codeModel.elementStream().anyMatch(element ->
+            element instanceof InvokeInstruction invoke &&
+                invoke.owner().asSymbol().equals(STOPPABLES) &&
+                invoke.name().equalsString("currentScope")))
+        .orElse(false);
+  }
+
+  private static boolean needRewrite(MethodModel methodModel) {
+    return ScopedClassRewriter.isAnnotated(methodModel, STOPPABLE) &&
+        !isRewritten(methodModel) &&
+        methodModel.code().map(codeModel -> !loopHeaders(codeModel).isEmpty()).orElse(false);
+  }
+
+  // the loop headers are the targets of the back-edges
+  private static Set<Label> loopHeaders(CodeModel codeModel) {
+    var seen = new HashSet<Label>();
+    var headers = new HashSet<Label>();
+    for(var element : codeModel) {
+      switch (element) {
+        case LabelTarget labelTarget -> seen.add(labelTarget.label());
+        case BranchInstruction branch when seen.contains(branch.target()) -> headers.add(branch.target());
+        default -> {}
+      }
+    }
+    return headers;
+  }
+
+  private static final class StopCheckTransform implements CodeTransform {
+    private final Set<Label> headers;
+    private int scopeSlot;
+
+    private StopCheckTransform(Set<Label> headers) {
+      this.headers = headers;
+      super();
+    }
+
+    @Override
+    public void atStart(CodeBuilder builder) {
+      scopeSlot = builder.allocateLocal(TypeKind.REFERENCE);
+      builder
+          .invokestatic(STOPPABLES, "currentScope", MethodTypeDesc.of(SCOPE))
+          .astore(scopeSlot);
+    }
+
+    @Override
+    public void accept(CodeBuilder builder, CodeElement element) {
+      builder.with(element);
+      if (element instanceof LabelTarget labelTarget && headers.contains(labelTarget.label())) {
+        var alive = builder.newLabel();
+        builder
+            .aload(scopeSlot)
+            .invokeinterface(SCOPE, "isAlive", MethodTypeDesc.of(CD_boolean))
+            .ifne(alive)
+            .invokestatic(STOPPABLES, "stopped", MethodTypeDesc.of(STOPPED_EXCEPTION))
+            .athrow()
+            .labelBinding(alive);
+      }
+    }
+  }
+
+  /**
+   * Rewrites the bytecode of a class.
+   * @param bytecode the bytecode of a class.
+   * @return the rewritten bytecode or null if the class has no method to rewrite.
+   */
+  static byte[] transform(byte[] bytecode) {
+    var classFile = ClassFile.of();
+    var classModel = classFile.parse(bytecode);
+    if (classModel.methods().stream().noneMatch(StoppableClassRewriter::needRewrite)) {
+      return null;
+    }
+    if (classModel.majorVersion() > Runtime.version().feature() + 44) {
+      throw new AssertionError("unknown bytecode version " + classModel.majorVersion());
+    }
+    var newBytecode = classFile.transformClass(classModel,
+        ClassTransform.transformingMethods(StoppableClassRewriter::needRewrite, (methodBuilder, methodElement) -> {
+          if (methodElement instanceof CodeModel codeModel) {
+            methodBuilder.transformCode(codeModel, new StopCheckTransform(loopHeaders(codeModel)));
+            return;
+          }
+          methodBuilder.with(methodElement);
+        }));
+
+    var errors = classFile.verify(newBytecode);
+    if (!errors.isEmpty()) {
+      throw new AssertionError("error while rewriting " + classModel.thisClass().asInternalName() + " " + errors);
+    }
+    return newBytecode;
+  }
+}
@@ -0,0 +1,148 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class CheckpointTest {
+  @Test
+  public void checkNotStopped() {
+    try(var scheduler = new CheckpointScheduler(Duration.ofMillis(1))) {
+      var checkpoint = scheduler.newCheckpoint(StopToken.ofArena());
+      var start = System.nanoTime();
+      while(System.nanoTime() - start < 20_000_000) {  // several time slices
+        checkpoint.check();
+      }
+    }
+  }
+
+  @Test
+  public void checkStopped() throws InterruptedException {
+    try(var scheduler = new CheckpointScheduler(Duration.ofMillis(1))) {
+      var token = StopToken.ofOpaque();
+      var started = new CountDownLatch(1);
+      try(var executor = Executors.newSingleThreadExecutor()) {
+        var future = executor.submit(() -> {
+          var checkpoint = scheduler.newCheckpoint(token);
+          started.countDown();
+          for(;;) {
+            checkpoint.check();
+          }
+        });
+        started.await();
+        token.requestStop();
+        var e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(StoppedException.class, e.getCause());
+      }
+    }
+  }
+
+  @Test
+  public void checkStoppedVirtualThreads() throws InterruptedException {
+    var token = StopToken.ofArena();
+    try(var scheduler = new CheckpointScheduler(Duration.ofMillis(1));
+        var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      // more compute threads than carrier threads, the yield lets all of them start
+      var count = 4 * Runtime.getRuntime().availableProcessors();
+      var started = new CountDownLatch(count);
+      var futures = new ArrayList<Future<?>>();
+      for(var i = 0; i < count; i++) {
+        futures.add(executor.submit(() -> {
+          var checkpoint = scheduler.newCheckpoint(token);
+          started.countDown();
+          for(;;) {
+            checkpoint.check();
+          }
+        }));
+      }
+      started.await();
+      token.requestStop();
+      for(var future : futures) {
+        var e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(StoppedException.class, e.getCause());
+      }
+    }
+  }
+
+  @Test
+  public void checkStoppedAfterClose() throws InterruptedException {
+    var scheduler = new CheckpointScheduler(Duration.ofMillis(1));
+    var token = StopToken.ofOpaque();
+    var started = new CountDownLatch(1);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> {
+        var checkpoint = scheduler.newCheckpoint(token);
+        started.countDown();
+        for(;;) {
+          checkpoint.check();
+        }
+      });
+      started.await();
+      scheduler.close();
+      Thread.sleep(10);
+      assertFalse(future.isDone());
+      token.requestStop();
+      var e = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(StoppedException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void newCheckpointAfterClose() {
+    var scheduler = new CheckpointScheduler(Duration.ofMillis(1));
+    scheduler.close();
+    scheduler.close();
+    var token = StopToken.ofArena();
+    var checkpoint = scheduler.newCheckpoint(token);
+    checkpoint.check();
+    token.requestStop();
+    assertThrows(StoppedException.class, checkpoint::check);
+  }
+
+  @Test
+  public void concurrentClose() throws InterruptedException, ExecutionException {
+    try(var executor = Executors.newFixedThreadPool(2)) {
+      for(var i = 0; i < 100; i++) {
+        var scheduler = new CheckpointScheduler(Duration.ofMillis(1));
+        var start = new CountDownLatch(1);
+        Runnable close = () -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          scheduler.close();
+        };
+        var future = executor.submit(close);
+        var future2 = executor.submit(close);
+        start.countDown();
+        future.get();
+        future2.get();
+        assertTrue(scheduler.isClosed());
+      }
+    }
+  }
+
+  @Test
+  public void invalidTimeSlice() {
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> new CheckpointScheduler(Duration.ZERO)),
+        () -> assertThrows(IllegalArgumentException.class, () -> new CheckpointScheduler(Duration.ofMillis(-1))),
+        () -> assertThrows(NullPointerException.class, () -> new CheckpointScheduler(null))
+    );
+  }
+
+  @Test
+  public void newCheckpointNull() {
+    try(var scheduler = new CheckpointScheduler(Duration.ofMillis(1))) {
+      assertThrows(NullPointerException.class, () -> scheduler.newCheckpoint(null));
+    }
+  }
+}
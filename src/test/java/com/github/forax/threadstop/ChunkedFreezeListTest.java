@@ -0,0 +1,118 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ChunkedFreezeListTest {
+  @Test
+  public void addAndGet() {
+    var list = new ChunkedFreezeList<String>();
+    list.add("foo");
+    list.add("bar");
+    assertAll(
+        () -> assertEquals(2, list.size()),
+        () -> assertEquals("foo", list.get(0)),
+        () -> assertEquals("bar", list.get(1)),
+        () -> assertEquals(List.of("foo", "bar"), list)
+    );
+  }
+
+  @Test
+  public void addSeveralChunks() {
+    var list = new ChunkedFreezeList<Integer>();
+    var size = 1_000_000;
+    for(var i = 0; i < size; i++) {
+      list.add(i);
+    }
+    assertAll(
+        () -> assertEquals(size, list.size()),
+        () -> assertTrue(IntStream.range(0, size).allMatch(i -> list.get(i) == i))
+    );
+  }
+
+  @Test
+  public void set() {
+    var list = new ChunkedFreezeList<String>();
+    list.add("foo");
+    list.add("bar");
+    assertEquals("bar", list.set(1, "baz"));
+    assertEquals(List.of("foo", "baz"), list);
+  }
+
+  @Test
+  public void getOutOfBounds() {
+    var list = new ChunkedFreezeList<String>();
+    list.add("foo");
+    assertAll(
+        () -> assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1)),
+        () -> assertThrows(IndexOutOfBoundsException.class, () -> list.get(1)),
+        () -> assertThrows(IndexOutOfBoundsException.class, () -> list.set(1, "bar"))
+    );
+  }
+
+  @Test
+  public void addNull() {
+    var list = new ChunkedFreezeList<String>();
+    assertThrows(NullPointerException.class, () -> list.add(null));
+  }
+
+  @Test
+  public void freeze() {
+    var list = new ChunkedFreezeList<String>();
+    list.add("foo");
+    list.freeze();
+    assertAll(
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.add("bar")),
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.set(0, "bar")),
+        () -> assertEquals(List.of("foo"), list)
+    );
+  }
+
+  @Test
+  public void compact() {
+    var list = new ChunkedFreezeList<Integer>();
+    var size = 10_000;
+    for(var i = 0; i < size; i++) {
+      list.add(i);
+    }
+    var compact = list.compact();
+    assertAll(
+        () -> assertEquals(list, compact),
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.add(42)),
+        () -> assertThrows(UnsupportedOperationException.class, () -> compact.set(0, 42))
+    );
+  }
+
+  @Test
+  public void compactEmpty() {
+    var list = new ChunkedFreezeList<Integer>();
+    assertEquals(List.of(), list.compact());
+  }
+
+  @Test
+  public void readFromAnotherThreadFreezes() throws ExecutionException, InterruptedException {
+    var list = new ChunkedFreezeList<String>();
+    list.add("foo");
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> list.get(0));
+      assertEquals("foo", future.get());
+    }
+    assertThrows(UnsupportedOperationException.class, () -> list.add("bar"));
+  }
+
+  @Test
+  public void addFromAnotherThread() throws InterruptedException {
+    var list = new ChunkedFreezeList<String>();
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> list.add("foo"));
+      var e = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class DeadlineSchedulerTest {
+  private static void awaitStop(StopToken token) {
+    while(!token.isStopRequested()) {
+      Thread.onSpinWait();
+    }
+  }
+
+  @Test
+  public void deadline() {
+    try(var scheduler = new DeadlineScheduler(Duration.ofMillis(1))) {
+      var start = System.nanoTime();
+      var token = scheduler.newToken(Duration.ofMillis(20));
+      assertFalse(token.isStopRequested());
+      awaitStop(token);
+      assertTrue(System.nanoTime() - start >= 20_000_000);
+    }
+  }
+
+  @Test
+  public void zeroOrNegativeTimeout() {
+    try(var scheduler = new DeadlineScheduler(Duration.ofMillis(1))) {
+      var token = scheduler.newToken(Duration.ZERO);
+      var token2 = scheduler.newToken(Duration.ofSeconds(-1));
+      assertAll(
+          () -> assertTrue(token.isStopRequested()),
+          () -> assertTrue(token2.isStopRequested())
+      );
+    }
+  }
+
+  @Test
+  public void sameTick() {
+    try(var scheduler = new DeadlineScheduler(Duration.ofMillis(50))) {
+      var tokens = new ArrayList<StopToken>();
+      for(var i = 0; i < 1_000; i++) {
+        tokens.add(scheduler.newToken(Duration.ofMillis(10)));
+      }
+      tokens.forEach(DeadlineSchedulerTest::awaitStop);
+    }
+  }
+
+  @Test
+  public void requestStopBeforeDeadline() {
+    try(var scheduler = new DeadlineScheduler(Duration.ofMillis(1))) {
+      var token = scheduler.newToken(Duration.ofHours(1));
+      var token2 = scheduler.newToken(Duration.ofHours(1));
+      token.requestStop();
+      assertAll(
+          () -> assertTrue(token.isStopRequested()),
+          () -> assertFalse(token2.isStopRequested())
+      );
+    }
+  }
+
+  @Test
+  public void closeStopsPendingTokens() {
+    StopToken token;
+    try(var scheduler = new DeadlineScheduler(Duration.ofMillis(1))) {
+      token = scheduler.newToken(Duration.ofHours(1));
+      assertFalse(token.isStopRequested());
+    }
+    assertTrue(token.isStopRequested());
+  }
+
+  @Test
+  public void newTokenAfterClose() {
+    var scheduler = new DeadlineScheduler(Duration.ofMillis(1));
+    scheduler.close();
+    scheduler.close();
+    assertThrows(IllegalStateException.class, () -> scheduler.newToken(Duration.ofSeconds(1)));
+  }
+
+  @Test
+  public void manyPendingDeadlines() {
+    try(var scheduler = new DeadlineScheduler(Duration.ofMillis(1))) {
+      var tokens = new ArrayList<StopToken>();
+      for(var i = 0; i < 100_000; i++) {
+        tokens.add(scheduler.newToken(Duration.ofMillis(i % 100)));
+      }
+      tokens.forEach(DeadlineSchedulerTest::awaitStop);
+    }
+  }
+
+  @Test
+  public void invalidTick() {
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> new DeadlineScheduler(Duration.ZERO)),
+        () -> assertThrows(NullPointerException.class, () -> new DeadlineScheduler(null))
+    );
+  }
+}
@@ -0,0 +1,111 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class FreezeDoubleListTest {
+  @Test
+  public void add() {
+    var list = new FreezeDoubleList();
+    list.add(4.2);
+    assertAll(
+        () -> assertEquals(1, list.size()),
+        () -> assertEquals(4.2, list.get(0))
+    );
+  }
+
+  @Test
+  public void addALot() {
+    var list = new FreezeDoubleList();
+    for(var i = 0; i < 1_000; i++) {
+      list.add(i);
+    }
+    assertAll(
+        () -> assertEquals(1_000, list.size()),
+        () -> assertEquals(999, list.get(999))
+    );
+  }
+
+  @Test
+  public void set() {
+    var list = new FreezeDoubleList();
+    list.add(4.2);
+    assertEquals(4.2, list.set(0, 1.3));
+    assertEquals(1.3, list.get(0));
+  }
+
+  @Test
+  public void getOutOfBounds() {
+    var list = new FreezeDoubleList();
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+  }
+
+  @Test
+  public void addAfterFreeze() {
+    var list = new FreezeDoubleList();
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> list.add(4.2));
+  }
+
+  @Test
+  public void setAfterFreeze() {
+    var list = new FreezeDoubleList();
+    list.add(4.2);
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> list.set(0, 1.3));
+  }
+
+  @Test
+  public void toArray() {
+    var list = new FreezeDoubleList();
+    list.add(4.2);
+    list.add(1.3);
+    assertArrayEquals(new double[] { 4.2, 1.3 }, list.toArray());
+  }
+
+  @Test
+  public void asSegment() {
+    var list = new FreezeDoubleList();
+    list.add(4.2);
+    list.add(1.3);
+    var segment = list.asSegment();
+    assertAll(
+        () -> assertEquals(2 * ValueLayout.JAVA_DOUBLE.byteSize(), segment.byteSize()),
+        () -> assertEquals(1.3, segment.getAtIndex(ValueLayout.JAVA_DOUBLE, 1)),
+        () -> assertTrue(segment.isReadOnly()),
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.add(4.2))
+    );
+  }
+
+  @Test
+  public void twoThreads() throws InterruptedException, ExecutionException {
+    var list = new FreezeDoubleList();
+    list.add(4.2);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        assertAll(
+            () -> assertEquals(1, list.size()),
+            () -> assertEquals(4.2, list.get(0))
+        );
+      });
+      task.get();
+    }
+    assertThrows(UnsupportedOperationException.class, () -> list.add(1.3));
+  }
+
+  @Test
+  public void twoThreadsAdd() throws InterruptedException, ExecutionException {
+    var list = new FreezeDoubleList();
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        assertThrows(IllegalStateException.class, () -> list.add(4.2));
+      });
+      task.get();
+    }
+  }
+}
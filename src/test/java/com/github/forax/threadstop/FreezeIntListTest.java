@@ -0,0 +1,111 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class FreezeIntListTest {
+  @Test
+  public void add() {
+    var list = new FreezeIntList();
+    list.add(42);
+    assertAll(
+        () -> assertEquals(1, list.size()),
+        () -> assertEquals(42, list.get(0))
+    );
+  }
+
+  @Test
+  public void addALot() {
+    var list = new FreezeIntList();
+    for(var i = 0; i < 1_000; i++) {
+      list.add(i);
+    }
+    assertAll(
+        () -> assertEquals(1_000, list.size()),
+        () -> assertEquals(999, list.get(999))
+    );
+  }
+
+  @Test
+  public void set() {
+    var list = new FreezeIntList();
+    list.add(42);
+    assertEquals(42, list.set(0, 13));
+    assertEquals(13, list.get(0));
+  }
+
+  @Test
+  public void getOutOfBounds() {
+    var list = new FreezeIntList();
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+  }
+
+  @Test
+  public void addAfterFreeze() {
+    var list = new FreezeIntList();
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> list.add(42));
+  }
+
+  @Test
+  public void setAfterFreeze() {
+    var list = new FreezeIntList();
+    list.add(42);
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> list.set(0, 13));
+  }
+
+  @Test
+  public void toArray() {
+    var list = new FreezeIntList();
+    list.add(42);
+    list.add(13);
+    assertArrayEquals(new int[] { 42, 13 }, list.toArray());
+  }
+
+  @Test
+  public void asSegment() {
+    var list = new FreezeIntList();
+    list.add(42);
+    list.add(13);
+    var segment = list.asSegment();
+    assertAll(
+        () -> assertEquals(2 * ValueLayout.JAVA_INT.byteSize(), segment.byteSize()),
+        () -> assertEquals(13, segment.getAtIndex(ValueLayout.JAVA_INT, 1)),
+        () -> assertTrue(segment.isReadOnly()),
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.add(42))
+    );
+  }
+
+  @Test
+  public void twoThreads() throws InterruptedException, ExecutionException {
+    var list = new FreezeIntList();
+    list.add(42);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        assertAll(
+            () -> assertEquals(1, list.size()),
+            () -> assertEquals(42, list.get(0))
+        );
+      });
+      task.get();
+    }
+    assertThrows(UnsupportedOperationException.class, () -> list.add(13));
+  }
+
+  @Test
+  public void twoThreadsAdd() throws InterruptedException, ExecutionException {
+    var list = new FreezeIntList();
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        assertThrows(IllegalStateException.class, () -> list.add(42));
+      });
+      task.get();
+    }
+  }
+}
@@ -2,8 +2,16 @@ package com.github.forax.threadstop;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -166,6 +174,283 @@ public final class FreezeListTest {
     }
   }
 
+  @Test
+  public void spliteratorFrozen() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 1_000).forEach(list::add);
+    list.freeze();
+    var spliterator = list.spliterator();
+    assertAll(
+        () -> assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED)),
+        () -> assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED)),
+        () -> assertTrue(spliterator.hasCharacteristics(Spliterator.IMMUTABLE)),
+        () -> assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED)),
+        () -> assertEquals(1_000, spliterator.estimateSize())
+    );
+  }
+
+  @Test
+  public void spliteratorEvenSplit() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 1_000).forEach(list::add);
+    list.freeze();
+    var spliterator = list.spliterator();
+    var prefix = spliterator.trySplit();
+    assertAll(
+        () -> assertEquals(500, prefix.estimateSize()),
+        () -> assertEquals(500, spliterator.estimateSize())
+    );
+  }
+
+  @Test
+  public void streamOwnerNotFrozen() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 10).forEach(list::add);
+    assertEquals(45, list.stream().mapToInt(x -> x).sum());
+    list.add(10);
+    assertEquals(11, list.size());
+  }
+
+  @Test
+  public void parallelStream() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 100_000).forEach(list::add);
+    list.freeze();
+    assertEquals(4_999_950_000L, list.parallelStream().mapToLong(x -> x).sum());
+  }
+
+  @Test
+  public void twoThreadsParallelStream() throws InterruptedException, ExecutionException {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 100_000).forEach(list::add);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> list.parallelStream().mapToLong(x -> x).sum());
+      assertEquals(4_999_950_000L, task.get());
+    }
+    assertThrows(UnsupportedOperationException.class, () -> list.add(0));
+  }
+
+  @Test
+  public void manyThreadsFreeze() throws InterruptedException, ExecutionException {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 10).forEach(list::add);
+    var barrier = new CyclicBarrier(16);
+    try(var executor = Executors.newFixedThreadPool(16)) {
+      var tasks = new ArrayList<Future<Integer>>();
+      for(var i = 0; i < 16; i++) {
+        tasks.add(executor.submit(() -> {
+          barrier.await();
+          return list.size();
+        }));
+      }
+      for(var task : tasks) {
+        assertEquals(10, task.get());
+      }
+    }
+    assertThrows(UnsupportedOperationException.class, () -> list.add(10));
+  }
+
+  @Test
+  public void freezeTwice() {
+    var list = new FreezeList<String>();
+    list.freeze();
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> list.add("foo"));
+  }
+
+  @Test
+  public void addAll() {
+    var list = new FreezeList<Integer>();
+    list.add(0);
+    assertAll(
+        () -> assertTrue(list.addAll(IntStream.range(1, 100).boxed().toList())),
+        () -> assertFalse(list.addAll(List.of())),
+        () -> assertEquals(IntStream.range(0, 100).boxed().toList(), list)
+    );
+  }
+
+  @Test
+  public void addAllWithNull() {
+    var list = new FreezeList<String>();
+    var collection = new ArrayList<String>();
+    collection.add("foo");
+    collection.add(null);
+    assertAll(
+        () -> assertThrows(NullPointerException.class, () -> list.addAll(collection)),
+        () -> assertEquals(0, list.size())
+    );
+  }
+
+  @Test
+  public void addAllAfterFreeze() {
+    var list = new FreezeList<String>();
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> list.addAll(List.of("foo")));
+  }
+
+  @Test
+  public void toArray() {
+    var list = new FreezeList<String>();
+    list.add("foo");
+    list.add("bar");
+    var array = new String[] { "a", "b", "c" };
+    assertAll(
+        () -> assertArrayEquals(new Object[] { "foo", "bar" }, list.toArray()),
+        () -> assertArrayEquals(new String[] { "foo", "bar" }, list.toArray(new String[0])),
+        () -> assertArrayEquals(new String[] { "foo", "bar", null }, list.toArray(array)),
+        () -> assertEquals(Object[].class, list.toArray().getClass())
+    );
+  }
+
+  @Test
+  public void forEach() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 10).forEach(list::add);
+    var result = new ArrayList<Integer>();
+    list.forEach(result::add);
+    assertEquals(list, result);
+  }
+
+  @Test
+  public void indexOfAndContains() {
+    var list = new FreezeList<String>();
+    list.add("foo");
+    list.add("bar");
+    list.add("foo");
+    assertAll(
+        () -> assertEquals(0, list.indexOf("foo")),
+        () -> assertEquals(2, list.lastIndexOf("foo")),
+        () -> assertEquals(-1, list.indexOf("baz")),
+        () -> assertEquals(-1, list.lastIndexOf("baz")),
+        () -> assertEquals(-1, list.indexOf(null)),
+        () -> assertTrue(list.contains("bar")),
+        () -> assertFalse(list.contains("baz")),
+        () -> assertFalse(list.contains(null))
+    );
+  }
+
+  @Test
+  public void sort() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 100).map(i -> 99 - i).forEach(list::add);
+    list.sort(null);
+    assertEquals(IntStream.range(0, 100).boxed().toList(), list);
+    list.sort(Comparator.reverseOrder());
+    assertEquals(IntStream.range(0, 100).map(i -> 99 - i).boxed().toList(), list);
+  }
+
+  @Test
+  public void replaceAll() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 10).forEach(list::add);
+    list.replaceAll(x -> x * 2);
+    assertEquals(IntStream.range(0, 10).map(x -> x * 2).boxed().toList(), list);
+  }
+
+  @Test
+  public void bulkMutationsAfterFreeze() {
+    var list = new FreezeList<Integer>();
+    list.add(1);
+    list.freeze();
+    assertAll(
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.sort(null)),
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.replaceAll(x -> x))
+    );
+  }
+
+  @Test
+  public void freezeDuringSort() throws InterruptedException, ExecutionException {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 100).map(i -> 99 - i).forEach(list::add);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var counter = new AtomicInteger();
+      assertThrows(UnsupportedOperationException.class, () -> list.sort((a, b) -> {
+        if (counter.getAndIncrement() == 10) {
+          assertDoesNotThrow(() -> executor.submit(list::freeze).get());
+        }
+        return Integer.compare(a, b);
+      }));
+      var future = executor.submit(() -> List.copyOf(list));
+      assertEquals(IntStream.range(0, 100).map(i -> 99 - i).boxed().toList(), future.get());
+    }
+  }
+
+  @Test
+  public void freezeDuringReplaceAll() throws InterruptedException, ExecutionException {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 100).forEach(list::add);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      assertThrows(UnsupportedOperationException.class, () -> list.replaceAll(x -> {
+        if (x == 50) {
+          assertDoesNotThrow(() -> executor.submit(list::freeze).get());
+        }
+        return -x;
+      }));
+      var future = executor.submit(() -> List.copyOf(list));
+      assertEquals(IntStream.range(0, 100).boxed().toList(), future.get());
+    }
+  }
+
+  @Test
+  public void twoThreadsBulkMutations() throws InterruptedException, ExecutionException {
+    var list = new FreezeList<Integer>();
+    list.add(1);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> {
+        assertAll(
+            () -> assertThrows(IllegalStateException.class, () -> list.addAll(List.of(2))),
+            () -> assertThrows(IllegalStateException.class, () -> list.sort(null)),
+            () -> assertThrows(IllegalStateException.class, () -> list.replaceAll(x -> x))
+        );
+        return null;
+      });
+      future.get();
+    }
+  }
+
+  @Test
+  public void twoThreadsToArray() throws InterruptedException, ExecutionException {
+    var list = new FreezeList<String>();
+    list.add("foo");
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> list.toArray());
+      assertArrayEquals(new Object[] { "foo" }, future.get());
+    }
+    assertThrows(UnsupportedOperationException.class, () -> list.add("bar"));
+  }
+
+  @Test
+  public void frozenIteratorHandOff() throws InterruptedException, ExecutionException {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 10).forEach(list::add);
+    list.freeze();
+    var iterator = list.iterator();
+    assertEquals(0, iterator.next());
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        var result = new ArrayList<Integer>();
+        iterator.forEachRemaining(result::add);
+        return result;
+      });
+      assertEquals(IntStream.range(1, 10).boxed().toList(), task.get());
+    }
+  }
+
+  @Test
+  public void iteratorFromAnotherThreadIsNotChecked() throws InterruptedException, ExecutionException {
+    var list = new FreezeList<Integer>();
+    list.add(101);
+    Iterator<Integer> iterator;
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      iterator = executor.submit(list::iterator).get();  // freezes the list
+    }
+    assertAll(
+        () -> assertTrue(iterator.hasNext()),
+        () -> assertEquals(101, iterator.next()),
+        () -> assertFalse(iterator.hasNext())
+    );
+  }
+
   /*@Test FIXME
   public void twoThreadsAddAndGet() throws InterruptedException, ExecutionException {
     var list = new FreezeList<Integer>();
@@ -0,0 +1,111 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class FreezeLongListTest {
+  @Test
+  public void add() {
+    var list = new FreezeLongList();
+    list.add(42L);
+    assertAll(
+        () -> assertEquals(1, list.size()),
+        () -> assertEquals(42L, list.get(0))
+    );
+  }
+
+  @Test
+  public void addALot() {
+    var list = new FreezeLongList();
+    for(var i = 0; i < 1_000; i++) {
+      list.add(i);
+    }
+    assertAll(
+        () -> assertEquals(1_000, list.size()),
+        () -> assertEquals(999, list.get(999))
+    );
+  }
+
+  @Test
+  public void set() {
+    var list = new FreezeLongList();
+    list.add(42L);
+    assertEquals(42L, list.set(0, 13L));
+    assertEquals(13L, list.get(0));
+  }
+
+  @Test
+  public void getOutOfBounds() {
+    var list = new FreezeLongList();
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+  }
+
+  @Test
+  public void addAfterFreeze() {
+    var list = new FreezeLongList();
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> list.add(42L));
+  }
+
+  @Test
+  public void setAfterFreeze() {
+    var list = new FreezeLongList();
+    list.add(42L);
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> list.set(0, 13L));
+  }
+
+  @Test
+  public void toArray() {
+    var list = new FreezeLongList();
+    list.add(42L);
+    list.add(13L);
+    assertArrayEquals(new long[] { 42L, 13L }, list.toArray());
+  }
+
+  @Test
+  public void asSegment() {
+    var list = new FreezeLongList();
+    list.add(42L);
+    list.add(13L);
+    var segment = list.asSegment();
+    assertAll(
+        () -> assertEquals(2 * ValueLayout.JAVA_LONG.byteSize(), segment.byteSize()),
+        () -> assertEquals(13L, segment.getAtIndex(ValueLayout.JAVA_LONG, 1)),
+        () -> assertTrue(segment.isReadOnly()),
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.add(42L))
+    );
+  }
+
+  @Test
+  public void twoThreads() throws InterruptedException, ExecutionException {
+    var list = new FreezeLongList();
+    list.add(42L);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        assertAll(
+            () -> assertEquals(1, list.size()),
+            () -> assertEquals(42L, list.get(0))
+        );
+      });
+      task.get();
+    }
+    assertThrows(UnsupportedOperationException.class, () -> list.add(13L));
+  }
+
+  @Test
+  public void twoThreadsAdd() throws InterruptedException, ExecutionException {
+    var list = new FreezeLongList();
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        assertThrows(IllegalStateException.class, () -> list.add(42L));
+      });
+      task.get();
+    }
+  }
+}
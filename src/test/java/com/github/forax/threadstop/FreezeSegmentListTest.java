@@ -0,0 +1,201 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class FreezeSegmentListTest {
+  private static final MemoryLayout POINT = MemoryLayout.structLayout(
+      JAVA_INT.withName("x"),
+      JAVA_INT.withName("y")
+  );
+
+  private static MemorySegment point(Arena arena, int x, int y) {
+    var segment = arena.allocate(POINT);
+    segment.set(JAVA_INT, 0, x);
+    segment.set(JAVA_INT, 4, y);
+    return segment;
+  }
+
+  @Test
+  public void add() {
+    try(var arena = Arena.ofConfined(); var list = new FreezeSegmentList(POINT)) {
+      list.add(point(arena, 1, 2));
+      var record = list.get(0);
+      assertAll(
+          () -> assertEquals(1, list.size()),
+          () -> assertEquals(1, record.get(JAVA_INT, 0)),
+          () -> assertEquals(2, record.get(JAVA_INT, 4)),
+          () -> assertTrue(record.isReadOnly())
+      );
+    }
+  }
+
+  @Test
+  public void addALot() {
+    try(var arena = Arena.ofConfined(); var list = new FreezeSegmentList(JAVA_LONG)) {
+      var record = arena.allocate(JAVA_LONG);
+      for(var i = 0L; i < 100_000; i++) {
+        record.set(JAVA_LONG, 0, i);
+        list.add(record);
+      }
+      assertAll(
+          () -> assertEquals(100_000, list.size()),
+          () -> assertEquals(4_096L, list.get(4_096).get(JAVA_LONG, 0)),
+          () -> assertEquals(99_999L, list.get(99_999).get(JAVA_LONG, 0))
+      );
+    }
+  }
+
+  @Test
+  public void set() {
+    try(var arena = Arena.ofConfined(); var list = new FreezeSegmentList(POINT)) {
+      list.add(point(arena, 1, 2));
+      list.set(0, point(arena, 3, 4));
+      assertEquals(3, list.get(0).get(JAVA_INT, 0));
+    }
+  }
+
+  @Test
+  public void addInvalidSize() {
+    try(var arena = Arena.ofConfined(); var list = new FreezeSegmentList(POINT)) {
+      assertThrows(IllegalArgumentException.class, () -> list.add(arena.allocate(JAVA_INT)));
+    }
+  }
+
+  @Test
+  public void getOutOfBounds() {
+    try(var list = new FreezeSegmentList(POINT)) {
+      assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+    }
+  }
+
+  @Test
+  public void addAfterFreeze() {
+    try(var arena = Arena.ofConfined(); var list = new FreezeSegmentList(POINT)) {
+      list.freeze();
+      assertThrows(UnsupportedOperationException.class, () -> list.add(point(arena, 1, 2)));
+    }
+  }
+
+  @Test
+  public void releaseNotFrozen() {
+    try(var list = new FreezeSegmentList(POINT)) {
+      assertThrows(IllegalStateException.class, list::release);
+    }
+  }
+
+  @Test
+  public void getAfterRelease() {
+    try(var arena = Arena.ofConfined()) {
+      var list = new FreezeSegmentList(POINT);
+      list.add(point(arena, 1, 2));
+      var record = list.get(0);
+      list.freeze();
+      list.release();
+      list.release();
+      assertThrows(IllegalStateException.class, () -> record.get(JAVA_INT, 0));
+    }
+  }
+
+  @Test
+  public void twoThreads() throws InterruptedException, ExecutionException {
+    try(var arena = Arena.ofConfined(); var list = new FreezeSegmentList(POINT)) {
+      list.add(point(arena, 1, 2));
+      try(var executor = Executors.newSingleThreadExecutor()) {
+        var task = executor.submit(() -> {
+          assertAll(
+              () -> assertEquals(1, list.size()),
+              () -> assertEquals(2, list.get(0).get(JAVA_INT, 4))
+          );
+        });
+        task.get();
+      }
+      assertTrue(list.isFrozen());
+    }
+  }
+
+  @Test
+  public void twoThreadsAdd() throws InterruptedException, ExecutionException {
+    try(var arena = Arena.ofShared(); var list = new FreezeSegmentList(POINT)) {
+      var point = point(arena, 1, 2);
+      try(var executor = Executors.newSingleThreadExecutor()) {
+        var task = executor.submit(() -> {
+          assertThrows(IllegalStateException.class, () -> list.add(point));
+        });
+        task.get();
+      }
+    }
+  }
+
+  @Test
+  public void saveAndMap(@TempDir Path dir) throws IOException {
+    var path = dir.resolve("points.bin");
+    var size = 10_000;
+    try(var arena = Arena.ofConfined(); var list = new FreezeSegmentList(POINT)) {
+      for(var i = 0; i < size; i++) {
+        list.add(point(arena, i, -i));
+      }
+      list.save(path);
+      assertTrue(list.isFrozen());
+    }
+    try(var list = FreezeSegmentList.map(path, POINT)) {
+      assertAll(
+          () -> assertTrue(list.isFrozen()),
+          () -> assertEquals(size, list.size()),
+          () -> assertEquals(0, list.get(0).get(JAVA_INT, 0)),
+          () -> assertEquals(4096, list.get(4096).get(JAVA_INT, 0)),
+          () -> assertEquals(-(size - 1), list.get(size - 1).get(JAVA_INT, 4)),
+          () -> assertTrue(list.get(0).isReadOnly()),
+          () -> assertThrows(IndexOutOfBoundsException.class, () -> list.get(size)),
+          () -> assertThrows(UnsupportedOperationException.class, () -> list.add(MemorySegment.ofArray(new int[2])))
+      );
+    }
+  }
+
+  @Test
+  public void saveAndMapEmpty(@TempDir Path dir) throws IOException {
+    var path = dir.resolve("empty.bin");
+    try(var list = new FreezeSegmentList(POINT)) {
+      list.save(path);
+    }
+    try(var list = FreezeSegmentList.map(path, POINT)) {
+      assertEquals(0, list.size());
+    }
+  }
+
+  @Test
+  public void mapWrongLayout(@TempDir Path dir) throws IOException {
+    var path = dir.resolve("points.bin");
+    try(var arena = Arena.ofConfined(); var list = new FreezeSegmentList(POINT)) {
+      list.add(point(arena, 1, 2));
+      list.save(path);
+    }
+    assertThrows(IOException.class, () -> FreezeSegmentList.map(path, MemoryLayout.structLayout(JAVA_LONG, JAVA_LONG)).close());
+    assertThrows(IOException.class, () -> FreezeSegmentList.map(path, JAVA_INT).close());
+  }
+
+  @Test
+  public void mapInvalidFile(@TempDir Path dir) throws IOException {
+    var path = dir.resolve("invalid.bin");
+    Files.write(path, new byte[128]);
+    var empty = dir.resolve("empty.bin");
+    Files.write(empty, new byte[0]);
+    assertAll(
+        () -> assertThrows(IOException.class, () -> FreezeSegmentList.map(path, POINT).close()),
+        () -> assertThrows(IOException.class, () -> FreezeSegmentList.map(empty, POINT).close())
+    );
+  }
+}
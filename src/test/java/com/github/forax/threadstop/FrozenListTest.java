@@ -0,0 +1,126 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class FrozenListTest {
+  @Test
+  public void frozenView() {
+    var list = new FreezeList<String>();
+    list.add("foo");
+    list.add("bar");
+    var view = list.frozenView();
+    assertAll(
+        () -> assertEquals(2, view.size()),
+        () -> assertEquals("foo", view.get(0)),
+        () -> assertEquals("bar", view.get(1)),
+        () -> assertEquals(List.of("foo", "bar"), view),
+        () -> assertThrows(IndexOutOfBoundsException.class, () -> view.get(2)),
+        () -> assertThrows(UnsupportedOperationException.class, () -> list.add("baz"))
+    );
+  }
+
+  @Test
+  public void frozenViewIsUnmodifiable() {
+    var list = new FreezeList<String>();
+    list.add("foo");
+    var view = list.frozenView();
+    assertAll(
+        () -> assertThrows(UnsupportedOperationException.class, () -> view.add("bar")),
+        () -> assertThrows(UnsupportedOperationException.class, () -> view.set(0, "bar")),
+        () -> assertThrows(UnsupportedOperationException.class, () -> view.remove(0)),
+        () -> assertThrows(UnsupportedOperationException.class, () -> view.sort(null))
+    );
+  }
+
+  @Test
+  public void bulkOperations() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 10).forEach(list::add);
+    var view = list.frozenView();
+    var result = new ArrayList<Integer>();
+    view.forEach(result::add);
+    assertAll(
+        () -> assertEquals(list, result),
+        () -> assertArrayEquals(list.toArray(), view.toArray()),
+        () -> assertArrayEquals(list.toArray(new Integer[0]), view.toArray(new Integer[0])),
+        () -> assertEquals(3, view.indexOf(3)),
+        () -> assertEquals(-1, view.indexOf(null)),
+        () -> assertTrue(view.contains(9)),
+        () -> assertFalse(view.contains(10)),
+        () -> assertEquals(45, view.parallelStream().mapToInt(x -> x).sum())
+    );
+  }
+
+  @Test
+  public void frozenViewFromAnotherThread() throws ExecutionException, InterruptedException {
+    var list = new FreezeList<String>();
+    list.add("foo");
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var view = executor.submit(list::frozenView).get();
+      assertEquals(List.of("foo"), view);
+    }
+    assertThrows(UnsupportedOperationException.class, () -> list.add("bar"));
+  }
+
+  @Test
+  public void cursor() {
+    var list = new FreezeList<Integer>();
+    IntStream.range(0, 10).forEach(list::add);
+    var cursor = list.frozenView().cursor(4);
+    var chunks = new ArrayList<List<Integer>>();
+    for(;;) {
+      var chunk = new ArrayList<Integer>();
+      if (!cursor.nextChunk(chunk::add)) {
+        break;
+      }
+      chunks.add(chunk);
+    }
+    assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9)), chunks);
+  }
+
+  @Test
+  public void cursorInvalidChunkSize() {
+    var view = new FreezeList<Integer>().frozenView();
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> view.cursor(0)),
+        () -> assertThrows(IllegalArgumentException.class, () -> view.cursor(-1))
+    );
+  }
+
+  @Test
+  public void cursorSeveralThreads() throws InterruptedException {
+    var list = new FreezeList<Integer>();
+    var size = 100_000;
+    IntStream.range(0, size).forEach(list::add);
+    var cursor = list.frozenView().cursor(100);
+    var seen = new AtomicIntegerArray(size);
+    var threads = IntStream.range(0, 4)
+        .mapToObj(_ -> Thread.ofPlatform().start(() -> {
+          while(cursor.nextChunk(element -> seen.incrementAndGet(element))) {
+            // empty
+          }
+        }))
+        .toList();
+    for(var thread : threads) {
+      thread.join();
+    }
+    assertTrue(IntStream.range(0, size).allMatch(i -> seen.get(i) == 1));
+  }
+
+  @Test
+  public void compactChunkedFreezeList() {
+    var list = new ChunkedFreezeList<Integer>();
+    IntStream.range(0, 10_000).forEach(list::add);
+    FrozenList<Integer> compact = list.compact();
+    assertEquals(list, compact);
+  }
+}
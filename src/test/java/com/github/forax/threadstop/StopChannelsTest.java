@@ -0,0 +1,103 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Pipe;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StopChannelsTest {
+  @Test
+  public void readAndWrite() throws IOException {
+    var token = new StopTree();
+    var pipe = Pipe.open();
+    try(var source = pipe.source(); var sink = pipe.sink()) {
+      assertEquals(3, StopChannels.write(token, sink, ByteBuffer.wrap(new byte[] { 1, 2, 3 })));
+      var buffer = ByteBuffer.allocate(16);
+      assertEquals(3, StopChannels.read(token, source, buffer));
+      assertAll(
+          () -> assertTrue(source.isOpen()),
+          () -> assertTrue(sink.isOpen()),
+          () -> assertEquals(3, buffer.position())
+      );
+    }
+  }
+
+  @Test
+  public void stopUnblocksRead() throws IOException, InterruptedException {
+    var token = new StopTree();
+    var pipe = Pipe.open();
+    try(var source = pipe.source(); var sink = pipe.sink();
+        var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> StopChannels.read(token, source, ByteBuffer.allocate(16)));
+      Thread.sleep(100);  // let the reader block
+      token.requestStop();
+      var e = assertThrows(ExecutionException.class, future::get);
+      assertAll(
+          () -> assertInstanceOf(StoppedException.class, e.getCause()),
+          () -> assertFalse(source.isOpen())
+      );
+    }
+  }
+
+  @Test
+  public void stopUnblocksWrite() throws IOException, InterruptedException {
+    var token = new StopTree();
+    var pipe = Pipe.open();
+    try(var source = pipe.source(); var sink = pipe.sink();
+        var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> {
+        for(;;) {  // until the pipe is full
+          StopChannels.write(token, sink, ByteBuffer.allocate(8192));
+        }
+      });
+      Thread.sleep(100);  // let the writer block
+      token.requestStop();
+      var e = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(StoppedException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void stopChildUnblocksRead() throws IOException, InterruptedException {
+    var root = new StopTree();
+    var token = root.newChild();
+    var pipe = Pipe.open();
+    try(var source = pipe.source(); var sink = pipe.sink();
+        var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> StopChannels.read(token, source, ByteBuffer.allocate(16)));
+      Thread.sleep(100);  // let the reader block
+      root.requestStop();
+      var e = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(StoppedException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void alreadyStopped() throws IOException {
+    var token = new StopTree();
+    token.requestStop();
+    var pipe = Pipe.open();
+    try(var source = pipe.source(); var sink = pipe.sink()) {
+      assertAll(
+          () -> assertThrows(StoppedException.class, () -> StopChannels.read(token, source, ByteBuffer.allocate(16))),
+          () -> assertTrue(source.isOpen())
+      );
+    }
+  }
+
+  @Test
+  public void closedNotStopped() throws IOException {
+    var token = new StopTree();
+    var pipe = Pipe.open();
+    var source = pipe.source();
+    source.close();
+    pipe.sink().close();
+    assertThrows(ClosedChannelException.class, () -> StopChannels.read(token, source, ByteBuffer.allocate(16)));
+  }
+}
@@ -0,0 +1,91 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StopCohortTest {
+  @Test
+  public void notStopped() {
+    var cohort = new StopCohort();
+    var token = cohort.newToken();
+    assertAll(
+        () -> assertFalse(cohort.isStopRequested()),
+        () -> assertFalse(token.isStopRequested())
+    );
+  }
+
+  @Test
+  public void stopCohortStopsAllTokens() {
+    var cohort = new StopCohort();
+    var tokens = IntStream.range(0, 100_000)
+        .mapToObj(_ -> cohort.newToken())
+        .toList();
+    cohort.requestStop();
+    assertTrue(tokens.stream().allMatch(StopToken::isStopRequested));
+  }
+
+  @Test
+  public void stopOneToken() {
+    var cohort = new StopCohort();
+    var token = cohort.newToken();
+    var other = cohort.newToken();
+    token.requestStop();
+    assertAll(
+        () -> assertTrue(token.isStopRequested()),
+        () -> assertFalse(other.isStopRequested()),
+        () -> assertFalse(cohort.isStopRequested())
+    );
+  }
+
+  @Test
+  public void newTokenOfAStoppedCohort() {
+    var cohort = new StopCohort();
+    cohort.requestStop();
+    cohort.requestStop();
+    assertTrue(cohort.newToken().isStopRequested());
+  }
+
+  @Test
+  public void stopALoop() throws InterruptedException, ExecutionException {
+    var cohort = new StopCohort();
+    var token = cohort.newToken();
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        var count = 0L;
+        while(!token.isStopRequested()) {
+          count++;
+        }
+        return count;
+      });
+      Thread.sleep(10);
+      cohort.requestStop();
+      assertTrue(task.get() >= 0);
+    }
+  }
+
+  @Test
+  public void stopOneTokenStopsALoop() throws InterruptedException, ExecutionException {
+    var cohort = new StopCohort();
+    var token = cohort.newToken();
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        var count = 0L;
+        while(!token.isStopRequested()) {
+          count++;
+        }
+        return count;
+      });
+      Thread.sleep(10);
+      token.requestStop();
+      assertAll(
+          () -> assertTrue(task.get() >= 0),
+          () -> assertFalse(cohort.isStopRequested())
+      );
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StopTaskScopeTest {
+  private static int loopUntilStopped(StopToken token) {
+    var sum = 0;
+    while(!token.isStopRequested()) {
+      sum++;
+    }
+    return sum;
+  }
+
+  // compute loops pin the carrier of a virtual thread, so use platform threads
+  // to not depend on the number of cores
+  private static <T> StopTaskScope<T> platformScope(StopTaskScope.Policy policy) {
+    return new StopTaskScope<>(command -> Thread.ofPlatform().start(command), policy);
+  }
+
+  @Test
+  public void shutdownOnSuccess() throws InterruptedException, ExecutionException {
+    try(var scope = StopTaskScopeTest.<Integer>platformScope(StopTaskScope.Policy.SHUTDOWN_ON_SUCCESS)) {
+      var loop = scope.fork(StopTaskScopeTest::loopUntilStopped);
+      scope.fork(_ -> 42);
+      assertEquals(42, scope.join().result());
+      assertTrue(loop.isCancelled());
+    }
+  }
+
+  @Test
+  public void shutdownOnSuccessAllFailed() throws InterruptedException {
+    try(var scope = StopTaskScope.<Integer>shutdownOnSuccess()) {
+      scope.fork(_ -> { throw new IOException(); });
+      scope.join();
+      var e = assertThrows(ExecutionException.class, scope::result);
+      assertInstanceOf(IOException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void shutdownOnFailure() throws InterruptedException {
+    try(var scope = StopTaskScopeTest.<Integer>platformScope(StopTaskScope.Policy.SHUTDOWN_ON_FAILURE)) {
+      var loop = scope.fork(StopTaskScopeTest::loopUntilStopped);
+      scope.fork(_ -> { throw new IOException(); });
+      scope.join();
+      var e = assertThrows(ExecutionException.class, scope::result);
+      assertAll(
+          () -> assertInstanceOf(IOException.class, e.getCause()),
+          () -> assertTrue(loop.isCancelled()),
+          () -> assertTrue(scope.isShutdown())
+      );
+    }
+  }
+
+  @Test
+  public void shutdownOnFailureAllSucceeded() throws InterruptedException, ExecutionException {
+    try(var scope = StopTaskScope.<Integer>shutdownOnFailure()) {
+      var task1 = scope.fork(_ -> 1);
+      var task2 = scope.fork(_ -> 2);
+      assertNull(scope.join().result());
+      assertEquals(3, task1.get() + task2.get());
+      assertFalse(scope.isShutdown());
+    }
+  }
+
+  @Test
+  public void platformThreads() throws InterruptedException, ExecutionException {
+    try(var executor = Executors.newFixedThreadPool(4);
+        var scope = new StopTaskScope<Integer>(executor, StopTaskScope.Policy.SHUTDOWN_ON_SUCCESS)) {
+      for(var i = 0; i < 3; i++) {
+        scope.fork(StopTaskScopeTest::loopUntilStopped);
+      }
+      scope.fork(_ -> 42);
+      assertEquals(42, scope.join().result());
+    }
+  }
+
+  @Test
+  public void closeStopsSubtasks() throws InterruptedException {
+    var started = new CountDownLatch(1);
+    var loop = new AtomicBoolean();
+    try(var scope = StopTaskScopeTest.<Integer>platformScope(StopTaskScope.Policy.SHUTDOWN_ON_FAILURE)) {
+      scope.fork(token -> {
+        started.countDown();
+        var result = loopUntilStopped(token);
+        loop.set(true);
+        return result;
+      });
+      started.await();
+    }
+    assertTrue(loop.get());
+  }
+
+  @Test
+  public void forkAfterShutdown() throws InterruptedException {
+    try(var scope = StopTaskScope.<Integer>shutdownOnFailure()) {
+      scope.shutdown();
+      var task = scope.fork(_ -> 42);
+      scope.join();
+      assertTrue(task.isCancelled());
+    }
+  }
+
+  @Test
+  public void resultNotJoined() {
+    try(var scope = StopTaskScopeTest.<Integer>platformScope(StopTaskScope.Policy.SHUTDOWN_ON_FAILURE)) {
+      scope.fork(StopTaskScopeTest::loopUntilStopped);
+      assertThrows(IllegalStateException.class, scope::result);
+    }
+  }
+
+  @Test
+  public void forkWrongThread() throws InterruptedException, ExecutionException {
+    try(var scope = StopTaskScope.<Integer>shutdownOnFailure();
+        var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        assertThrows(IllegalStateException.class, () -> scope.fork(_ -> 42));
+      });
+      task.get();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StopTokenTest {
+  private static final List<Supplier<StopToken>> FACTORIES =
+      List.of(StopToken::ofArena, StopToken::ofOpaque, StopToken::ofVolatile, StopToken::ofCallSite);
+
+  @Test
+  public void notStopped() {
+    for(var factory : FACTORIES) {
+      var token = factory.get();
+      assertFalse(token.isStopRequested());
+    }
+  }
+
+  @Test
+  public void requestStop() {
+    for(var factory : FACTORIES) {
+      var token = factory.get();
+      token.requestStop();
+      assertTrue(token.isStopRequested());
+    }
+  }
+
+  @Test
+  public void requestStopTwice() {
+    for(var factory : FACTORIES) {
+      var token = factory.get();
+      token.requestStop();
+      token.requestStop();
+      assertTrue(token.isStopRequested());
+    }
+  }
+
+  @Test
+  public void stopALoop() throws InterruptedException, ExecutionException {
+    for(var factory : FACTORIES) {
+      var token = factory.get();
+      try(var executor = Executors.newSingleThreadExecutor()) {
+        var task = executor.submit(() -> {
+          var count = 0L;
+          while(!token.isStopRequested()) {
+            count++;
+          }
+          return count;
+        });
+        Thread.sleep(10);
+        token.requestStop();
+        assertTrue(task.get() >= 0);
+      }
+    }
+  }
+
+  @Test
+  public void interrupt() {
+    var token = StopToken.ofInterrupt(Thread.currentThread());
+    assertFalse(token.isStopRequested());
+    token.requestStop();
+    assertTrue(token.isStopRequested());
+    assertTrue(Thread.interrupted());  // clear the interrupt status
+  }
+
+  @Test
+  public void interruptStopALoop() throws InterruptedException, ExecutionException {
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var tokenTask = executor.submit(() -> StopToken.ofInterrupt(Thread.currentThread()));
+      var token = tokenTask.get();
+      var task = executor.submit(() -> {
+        while(!token.isStopRequested()) {
+          Thread.onSpinWait();
+        }
+        return Thread.interrupted();
+      });
+      Thread.sleep(10);
+      token.requestStop();
+      assertTrue(task.get());
+    }
+  }
+
+  @Test
+  public void interruptNull() {
+    assertThrows(NullPointerException.class, () -> StopToken.ofInterrupt(null));
+  }
+}
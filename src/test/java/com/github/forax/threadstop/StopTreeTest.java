@@ -0,0 +1,175 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StopTreeTest {
+  @Test
+  public void notStopped() {
+    var root = new StopTree();
+    var child = root.newChild();
+    assertAll(
+        () -> assertFalse(root.isStopRequested()),
+        () -> assertFalse(child.isStopRequested())
+    );
+  }
+
+  @Test
+  public void stopParentStopsChildren() {
+    var root = new StopTree();
+    var child = root.newChild();
+    var grandChild = child.newChild();
+    root.requestStop();
+    assertAll(
+        () -> assertTrue(root.isStopRequested()),
+        () -> assertTrue(child.isStopRequested()),
+        () -> assertTrue(grandChild.isStopRequested())
+    );
+  }
+
+  @Test
+  public void stopChildDoesNotStopParent() {
+    var root = new StopTree();
+    var child = root.newChild();
+    var sibling = root.newChild();
+    child.requestStop();
+    assertAll(
+        () -> assertFalse(root.isStopRequested()),
+        () -> assertTrue(child.isStopRequested()),
+        () -> assertFalse(sibling.isStopRequested())
+    );
+  }
+
+  @Test
+  public void newChildOfAStoppedParent() {
+    var root = new StopTree();
+    root.requestStop();
+    var child = root.newChild();
+    assertTrue(child.isStopRequested());
+  }
+
+  @Test
+  public void closeIsRequestStop() {
+    StopTree child;
+    try(var root = new StopTree()) {
+      child = root.newChild();
+    }
+    assertTrue(child.isStopRequested());
+  }
+
+  @Test
+  public void requestStopTwice() {
+    var root = new StopTree();
+    var child = root.newChild();
+    root.requestStop();
+    root.requestStop();
+    child.requestStop();
+    assertTrue(child.isStopRequested());
+  }
+
+  @Test
+  public void manyChildren() {
+    var root = new StopTree();
+    var children = IntStream.range(0, 10_000)
+        .mapToObj(_ -> root.newChild())
+        .toList();
+    children.stream().limit(5_000).forEach(StopTree::close);
+    root.requestStop();
+    assertTrue(children.stream().allMatch(StopTree::isStopRequested));
+  }
+
+  @Test
+  public void stopLoopsInChildren() throws InterruptedException, ExecutionException {
+    var root = new StopTree();
+    try(var executor = Executors.newFixedThreadPool(4)) {
+      var tasks = new ArrayList<Future<Long>>();
+      for(var i = 0; i < 4; i++) {
+        var child = root.newChild();
+        tasks.add(executor.submit(() -> {
+          var count = 0L;
+          while(!child.isStopRequested()) {
+            count++;
+          }
+          return count;
+        }));
+      }
+      Thread.sleep(10);
+      root.requestStop();
+      for(var task : tasks) {
+        assertTrue(task.get() >= 0);
+      }
+    }
+  }
+
+  @Test
+  public void concurrentNewChildAndStop() throws InterruptedException, ExecutionException {
+    var root = new StopTree();
+    try(var executor = Executors.newFixedThreadPool(4)) {
+      var tasks = new ArrayList<Future<StopTree>>();
+      for(var i = 0; i < 1_000; i++) {
+        tasks.add(executor.submit(root::newChild));
+      }
+      root.requestStop();
+      for(var task : tasks) {
+        assertTrue(task.get().isStopRequested());
+      }
+    }
+  }
+
+  @Test
+  public void onStop() {
+    var root = new StopTree();
+    var child = root.newChild();
+    var actions = new ArrayList<String>();
+    root.onStop(() -> actions.add("root"));
+    child.onStop(() -> actions.add("child"));
+    root.requestStop();
+    root.requestStop();
+    assertEquals(List.of("root", "child"), actions);
+  }
+
+  @Test
+  public void onStopAlreadyStopped() {
+    var root = new StopTree();
+    root.requestStop();
+    var actions = new ArrayList<String>();
+    root.onStop(() -> actions.add("root"));
+    assertEquals(List.of("root"), actions);
+  }
+
+  @Test
+  public void removeOnStop() {
+    var root = new StopTree();
+    var actions = new ArrayList<String>();
+    Runnable action = () -> actions.add("root");
+    root.onStop(action);
+    assertAll(
+        () -> assertTrue(root.removeOnStop(action)),
+        () -> assertFalse(root.removeOnStop(action))
+    );
+    root.requestStop();
+    assertEquals(List.of(), actions);
+  }
+
+  @Test
+  public void onStopActionThrows() {
+    var root = new StopTree();
+    var child = root.newChild();
+    var actions = new ArrayList<String>();
+    root.onStop(() -> { throw new IllegalStateException("oops"); });
+    child.onStop(() -> actions.add("child"));
+    assertThrows(IllegalStateException.class, root::requestStop);
+    assertAll(
+        () -> assertTrue(child.isStopRequested()),
+        () -> assertEquals(List.of("child"), actions)
+    );
+  }
+}
@@ -0,0 +1,79 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StoppablesTest {
+  // the code inserted by the rewriter in a loop of a @Stoppable method
+  private static int loop() {
+    var scope = Stoppables.currentScope();
+    var count = 0;
+    for(;;) {
+      if (!scope.isAlive()) {
+        throw Stoppables.stopped();
+      }
+      count++;
+    }
+  }
+
+  @Test
+  public void currentScopeNotBound() {
+    assertTrue(Stoppables.currentScope().isAlive());
+  }
+
+  @Test
+  public void currentScopeBound() {
+    var token = StopToken.ofArena();
+    Stoppables.run(token, () -> {
+      var scope = Stoppables.currentScope();
+      assertTrue(scope.isAlive());
+      token.requestStop();
+      assertFalse(scope.isAlive());
+    });
+    assertTrue(Stoppables.currentScope().isAlive());
+  }
+
+  @Test
+  public void call() {
+    var tree = new StopTree();
+    assertEquals(42, Stoppables.call(tree, () -> 42));
+  }
+
+  @Test
+  public void stopLoop() throws InterruptedException {
+    var token = StopToken.ofArena();
+    var started = new CountDownLatch(1);
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var future = executor.submit(() -> Stoppables.call(token, () -> {
+        started.countDown();
+        return loop();
+      }));
+      started.await();
+      token.requestStop();
+      var e = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(StoppedException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void stopTreeChild() {
+    var tree = new StopTree();
+    var child = tree.newChild();
+    tree.requestStop();
+    assertThrows(StoppedException.class, () -> Stoppables.run(child, StoppablesTest::loop));
+  }
+
+  @Test
+  public void tokenNotBackedByAnArena() {
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> Stoppables.run(StopToken.ofOpaque(), () -> {})),
+        () -> assertThrows(IllegalArgumentException.class, () -> Stoppables.call(StopToken.ofVolatile(), () -> 42)),
+        () -> assertThrows(NullPointerException.class, () -> Stoppables.run(null, () -> {}))
+    );
+  }
+}
@@ -0,0 +1,99 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StripMinedLoopTest {
+  @Test
+  public void runAllChunks() {
+    var loop = new StripMinedLoop(StopToken.ofVolatile(), Duration.ofMillis(1), 8);
+    var array = new int[100_003];
+    assertTrue(loop.run(array.length, (start, end) -> {
+      for(var i = start; i < end; i++) {
+        array[i]++;
+      }
+    }));
+    for(var value : array) {
+      assertEquals(1, value);
+    }
+  }
+
+  @Test
+  public void runEmpty() {
+    var loop = new StripMinedLoop(StopToken.ofVolatile(), Duration.ofMillis(1), 8);
+    assertTrue(loop.run(0, (_, _) -> fail()));
+  }
+
+  @Test
+  public void chunkSizeIsAMultipleOfTheGranularity() {
+    var loop = new StripMinedLoop(StopToken.ofVolatile(), Duration.ofMillis(1), 12);
+    var chunks = new ArrayList<Integer>();
+    loop.run(1_000_000, (start, end) -> chunks.add(end - start));
+    for(var i = 0; i < chunks.size() - 1; i++) {  // except the last one
+      assertEquals(0, chunks.get(i) % 12);
+    }
+    assertEquals(0, loop.chunkSize() % 12);
+  }
+
+  @Test
+  public void slowKernelShrinksTheChunks() {
+    var token = StopToken.ofVolatile();
+    var loop = new StripMinedLoop(token, Duration.ofNanos(100_000), 4);
+    var initialChunkSize = loop.chunkSize();
+    var chunks = new ArrayList<Integer>();
+    loop.run(1_000_000, (start, end) -> {
+      LockSupport.parkNanos(1_000_000);  // far slower than the target latency
+      chunks.add(end - start);
+      if (chunks.size() == 5) {
+        token.requestStop();
+      }
+    });
+    assertTrue(loop.chunkSize() < initialChunkSize);
+  }
+
+  @Test
+  public void fastKernelGrowsTheChunks() {
+    var loop = new StripMinedLoop(StopToken.ofVolatile(), Duration.ofSeconds(1), 4);
+    var initialChunkSize = loop.chunkSize();
+    loop.run(100_000_000, (start, end) -> {});
+    assertTrue(loop.chunkSize() > initialChunkSize);
+  }
+
+  @Test
+  public void stopBetweenChunks() {
+    var token = StopToken.ofVolatile();
+    var loop = new StripMinedLoop(token, Duration.ofMillis(1), 8);
+    var chunks = new ArrayList<Integer>();
+    assertFalse(loop.run(1_000_000, (start, end) -> {
+      chunks.add(start);
+      token.requestStop();
+    }));
+    assertEquals(1, chunks.size());
+  }
+
+  @Test
+  public void alreadyStopped() {
+    var token = StopToken.ofArena();
+    token.requestStop();
+    var loop = new StripMinedLoop(token, Duration.ofMillis(1), 8);
+    assertFalse(loop.run(10, (_, _) -> fail()));
+  }
+
+  @Test
+  public void invalidArguments() {
+    var token = StopToken.ofVolatile();
+    var loop = new StripMinedLoop(token, Duration.ofMillis(1), 8);
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> new StripMinedLoop(token, Duration.ZERO, 8)),
+        () -> assertThrows(IllegalArgumentException.class, () -> new StripMinedLoop(token, Duration.ofMillis(1), 0)),
+        () -> assertThrows(NullPointerException.class, () -> new StripMinedLoop(null, Duration.ofMillis(1), 8)),
+        () -> assertThrows(IllegalArgumentException.class, () -> loop.run(-1, (_, _) -> {})),
+        () -> assertThrows(NullPointerException.class, () -> loop.run(10, null))
+    );
+  }
+}
@@ -0,0 +1,115 @@
+package com.github.forax.threadstop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StripedFreezeListTest {
+  @Test
+  public void oneWriter() {
+    var list = new StripedFreezeList<String>();
+    var writer = list.newWriter();
+    writer.add("foo");
+    writer.add("bar");
+    assertAll(
+        () -> assertEquals(2, list.size()),
+        () -> assertEquals("foo", list.get(0)),
+        () -> assertEquals("bar", list.get(1)),
+        () -> assertEquals(List.of("foo", "bar"), list)
+    );
+  }
+
+  @Test
+  public void empty() {
+    var list = new StripedFreezeList<String>();
+    list.newWriter();
+    assertAll(
+        () -> assertEquals(0, list.size()),
+        () -> assertThrows(IndexOutOfBoundsException.class, () -> list.get(0))
+    );
+  }
+
+  @Test
+  public void severalWritersSameThread() {
+    var list = new StripedFreezeList<Integer>();
+    var writer1 = list.newWriter();
+    var writer2 = list.newWriter();
+    var writer3 = list.newWriter();
+    IntStream.range(0, 100).forEach(writer1::add);
+    IntStream.range(100, 150).forEach(writer3::add);
+    assertEquals(IntStream.range(0, 150).boxed().toList(), list);
+  }
+
+  @Test
+  public void severalWriterThreads() throws InterruptedException, ExecutionException {
+    var list = new StripedFreezeList<Integer>();
+    try(var executor = Executors.newFixedThreadPool(4)) {
+      var tasks = new ArrayList<Future<?>>();
+      for(var i = 0; i < 4; i++) {
+        var start = i * 1_000;
+        tasks.add(executor.submit(() -> {
+          var writer = list.newWriter();
+          IntStream.range(start, start + 1_000).forEach(writer::add);
+        }));
+      }
+      for(var task : tasks) {
+        task.get();
+      }
+    }
+    assertAll(
+        () -> assertEquals(4_000, list.size()),
+        () -> assertEquals(IntStream.range(0, 4_000).sum(), list.stream().mapToInt(x -> x).sum())
+    );
+  }
+
+  @Test
+  public void addAfterFreeze() {
+    var list = new StripedFreezeList<String>();
+    var writer = list.newWriter();
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> writer.add("foo"));
+  }
+
+  @Test
+  public void addAfterRead() {
+    var list = new StripedFreezeList<String>();
+    var writer = list.newWriter();
+    writer.add("foo");
+    assertEquals(1, list.size());
+    assertThrows(UnsupportedOperationException.class, () -> writer.add("bar"));
+  }
+
+  @Test
+  public void newWriterAfterFreeze() {
+    var list = new StripedFreezeList<String>();
+    list.freeze();
+    list.freeze();
+    assertThrows(UnsupportedOperationException.class, list::newWriter);
+  }
+
+  @Test
+  public void writerWrongThread() throws InterruptedException, ExecutionException {
+    var list = new StripedFreezeList<String>();
+    var writer = list.newWriter();
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      var task = executor.submit(() -> {
+        assertThrows(IllegalStateException.class, () -> writer.add("foo"));
+      });
+      task.get();
+    }
+  }
+
+  @Test
+  public void addNull() {
+    var list = new StripedFreezeList<String>();
+    var writer = list.newWriter();
+    assertThrows(NullPointerException.class, () -> writer.add(null));
+  }
+}
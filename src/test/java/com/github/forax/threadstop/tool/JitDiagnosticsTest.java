@@ -0,0 +1,211 @@
+package com.github.forax.threadstop.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class JitDiagnosticsTest {
+  // C2 on x86 with AVX2, the loop is vectorized and unrolled, the inner loop has no poll,
+  // the poll is in the outer loop (loop strip mining)
+  private static final String X86_STRIP_MINED = """
+        0x00007f3c2d0f5e40:   mov    %r11d,%r8d
+        0x00007f3c2d0f5e43:   add    $0x1f40,%r8d
+        0x00007f3c2d0f5e4a:   vpaddd 0x10(%rsi,%rcx,4),%ymm0,%ymm0
+        0x00007f3c2d0f5e50:   vpaddd 0x30(%rsi,%rcx,4),%ymm0,%ymm0
+        0x00007f3c2d0f5e56:   vpaddd 0x50(%rsi,%rcx,4),%ymm0,%ymm0
+        0x00007f3c2d0f5e5c:   vpaddd 0x70(%rsi,%rcx,4),%ymm0,%ymm0
+        0x00007f3c2d0f5e62:   add    $0x20,%ecx
+        0x00007f3c2d0f5e65:   cmp    %r8d,%ecx
+        0x00007f3c2d0f5e68:   jl     0x00007f3c2d0f5e4a
+        0x00007f3c2d0f5e6a:   mov    0x448(%r15),%r10     ; ImmutableOopMap {rsi=Oop }
+                                                          ;*goto {reexecute=1 rethrow=0 return_oop=0}
+        0x00007f3c2d0f5e71:   test   %eax,(%r10)          ;   {poll}
+        0x00007f3c2d0f5e74:   cmp    %r9d,%ecx
+        0x00007f3c2d0f5e77:   jl     0x00007f3c2d0f5e40
+        0x00007f3c2d0f5e79:   vzeroupper
+        0x00007f3c2d0f5e7c:   add    $0x10,%rsp
+        0x00007f3c2d0f5e80:   pop    %rbp
+        0x00007f3c2d0f5e81:   cmp    0x440(%r15),%rsp     ;   {poll_return}
+        0x00007f3c2d0f5e88:   ja     0x00007f3c2d0f5e9c
+        0x00007f3c2d0f5e8e:   ret
+      """;
+
+  // C2 on x86, a loop not counted (e.g. a volatile check), the poll is done at each iteration
+  private static final String X86_POLL_IN_LOOP = """
+        0x00007f3c2d0f6a00:   add    0x10(%rsi,%rcx,4),%eax
+        0x00007f3c2d0f6a04:   inc    %ecx
+        0x00007f3c2d0f6a06:   mov    0x448(%r15),%r10
+        0x00007f3c2d0f6a0d:   movzbl 0xc(%rdx),%r11d
+        0x00007f3c2d0f6a12:   test   %eax,(%r10)          ;   {poll}
+        0x00007f3c2d0f6a15:   test   %r11d,%r11d
+        0x00007f3c2d0f6a18:   jne    0x00007f3c2d0f6a30
+        0x00007f3c2d0f6a1a:   cmp    %r8d,%ecx
+        0x00007f3c2d0f6a1d:   jl     0x00007f3c2d0f6a00
+        0x00007f3c2d0f6a30:   ret                         ;   {poll_return}
+      """;
+
+  // C2 on aarch64 with NEON, vectorized, unrolled and strip mined
+  private static final String AARCH64_STRIP_MINED = """
+        0x0000ffff8c0f1a00:   add w13, w10, #0x1f, lsl #8
+        0x0000ffff8c0f1a04:   ldr q16, [x11, #16]
+        0x0000ffff8c0f1a08:   ldr q16, [x11, #32]
+        0x0000ffff8c0f1a0c:   ldr q16, [x11, #48]
+        0x0000ffff8c0f1a10:   ldr q16, [x11, #64]
+        0x0000ffff8c0f1a14:   add v20.4s, v20.4s, v16.4s
+        0x0000ffff8c0f1a18:   add v21.4s, v21.4s, v16.4s
+        0x0000ffff8c0f1a1c:   add w10, w10, #0x10
+        0x0000ffff8c0f1a20:   cmp w10, w13
+        0x0000ffff8c0f1a24:   b.lt 0x0000ffff8c0f1a04  // b.tstop
+        0x0000ffff8c0f1a28:   ldr x8, [x28, #48]
+        0x0000ffff8c0f1a2c:   ldr wzr, [x8]               ;   {poll}
+        0x0000ffff8c0f1a30:   cmp w10, w12
+        0x0000ffff8c0f1a34:   b.lt 0x0000ffff8c0f1a00  // b.tstop
+        0x0000ffff8c0f1a38:   ldp x29, x30, [sp, #16]
+        0x0000ffff8c0f1a3c:   ldr x8, [x28, #40]          ;   {poll_return}
+        0x0000ffff8c0f1a40:   ret
+      """;
+
+  // PrintAssembly without hsdis, only a hex dump, the relocations are still annotated
+  private static final String HEX_DUMP = """
+      [Disassembly]
+      --------------------------------------------------------------------------------
+        0x00007f3c2d0f5e40: 4589 c041 | 81c0 401f | 0000 c5fd | fe44 8e10 | c5f5 fe4c | 8e30 c5ed | fe54 8e50
+        0x00007f3c2d0f5e5c: c5e5 fe5c | 8e70 83c1 | 2041 3bc8 | 7ce0 4d8b | 9748 0400
+        0x00007f3c2d0f5e71: ;   {poll}
+        0x00007f3c2d0f5e71: 4185 023b | c97c c7c5 | f877 4883 | c410 5d49 | 3ba7 4004
+        0x00007f3c2d0f5e81: ;   {poll_return}
+        0x00007f3c2d0f5e81: 0000 0f87 | 1000 0000 | c3
+      """;
+
+  @Test
+  public void analyzeX86StripMined() {
+    var indicators = JitDiagnostics.analyze(X86_STRIP_MINED);
+    assertAll(
+        () -> assertTrue(indicators.disassembly()),
+        () -> assertTrue(indicators.vectorized()),
+        () -> assertTrue(indicators.unrolled()),
+        () -> assertEquals(1, indicators.safepointPolls()),
+        () -> assertTrue(indicators.stripMined()),
+        () -> assertFalse(indicators.pollInInnermostLoop())
+    );
+  }
+
+  @Test
+  public void analyzeX86PollInLoop() {
+    var indicators = JitDiagnostics.analyze(X86_POLL_IN_LOOP);
+    assertAll(
+        () -> assertTrue(indicators.disassembly()),
+        () -> assertFalse(indicators.vectorized()),
+        () -> assertFalse(indicators.unrolled()),
+        () -> assertEquals(1, indicators.safepointPolls()),
+        () -> assertFalse(indicators.stripMined()),
+        () -> assertTrue(indicators.pollInInnermostLoop())
+    );
+  }
+
+  @Test
+  public void analyzeAarch64StripMined() {
+    var indicators = JitDiagnostics.analyze(AARCH64_STRIP_MINED);
+    assertAll(
+        () -> assertTrue(indicators.disassembly()),
+        () -> assertTrue(indicators.vectorized()),
+        () -> assertTrue(indicators.unrolled()),
+        () -> assertEquals(1, indicators.safepointPolls()),
+        () -> assertTrue(indicators.stripMined()),
+        () -> assertFalse(indicators.pollInInnermostLoop())
+    );
+  }
+
+  @Test
+  public void analyzeHexDump() {
+    var indicators = JitDiagnostics.analyze(HEX_DUMP);
+    assertAll(
+        () -> assertFalse(indicators.disassembly()),
+        () -> assertFalse(indicators.vectorized()),
+        () -> assertFalse(indicators.unrolled()),
+        () -> assertEquals(1, indicators.safepointPolls()),
+        () -> assertFalse(indicators.stripMined()),
+        () -> assertFalse(indicators.pollInInnermostLoop())
+    );
+  }
+
+  @Test
+  public void analyzePollReturnIsNotCounted() {
+    var asm = """
+          0x0000000000001000:   add    %edx,%eax
+          0x0000000000001002:   cmp    0x440(%r15),%rsp     ;   {poll_return}
+          0x0000000000001009:   ret
+        """;
+    var indicators = JitDiagnostics.analyze(asm);
+    assertAll(
+        () -> assertEquals(0, indicators.safepointPolls()),
+        () -> assertFalse(indicators.stripMined()),
+        () -> assertFalse(indicators.pollInInnermostLoop())
+    );
+  }
+
+  @Test
+  public void analyzeEmpty() {
+    assertEquals(new JitDiagnostics.Indicators(false, false, false, 0, false, false), JitDiagnostics.analyze(""));
+  }
+
+  @Test
+  public void c2Sections() {
+    var log = """
+        Compiled method (c1)     120   12       3       Foo::sum (24 bytes)
+          0x00007f3c2d0f1000:   add    0x10(%rsi,%rcx,4),%eax
+          0x00007f3c2d0f1004:   test   %eax,(%r10)          ;   {poll}
+        Compiled method (c2)     250   15       4       Foo::sum (24 bytes)
+          0x00007f3c2d0f5e4a:   vpaddd 0x10(%rsi,%rcx,4),%ymm0,%ymm0
+        Compiled method (c1)     300   16       3       Foo::other (8 bytes)
+          0x00007f3c2d0f2000:   ret
+        """;
+    var sections = JitDiagnostics.c2Sections(log);
+    assertAll(
+        () -> assertTrue(sections.contains("vpaddd")),
+        () -> assertFalse(sections.contains("{poll}")),
+        () -> assertFalse(sections.contains("Foo::other")),
+        () -> assertEquals("", JitDiagnostics.c2Sections("no compiled method"))
+    );
+  }
+
+  @Test
+  public void flag() {
+    var flags = """
+             uintx LoopStripMiningIter                      = 1000                                   {C2 product} {default}
+              bool UseCountedLoopSafepoints                 = true                                   {C2 product} {default}
+        """;
+    assertAll(
+        () -> assertEquals(1_000L, JitDiagnostics.<Long>flag(JitDiagnostics.LOOP_STRIP_MINING_ITER, flags, Long::parseLong)),
+        () -> assertEquals(true, JitDiagnostics.<Boolean>flag(JitDiagnostics.USE_COUNTED_LOOP_SAFEPOINTS, flags, Boolean::parseBoolean)),
+        () -> assertNull(JitDiagnostics.flag(JitDiagnostics.LOOP_STRIP_MINING_ITER, "", Long::parseLong))
+    );
+  }
+
+  @Test
+  public void toJSON() {
+    var nested = new LinkedHashMap<String, Object>();
+    nested.put("size", 1_024);
+    var map = new LinkedHashMap<String, Object>();
+    map.put("name", "a \"quoted\" \\ name");
+    map.put("score", 12.5);
+    map.put("error", Double.NaN);
+    map.put("infinite", Double.POSITIVE_INFINITY);
+    map.put("vectorized", true);
+    map.put("stripMined", null);
+    map.put("params", nested);
+    map.put("empty", Map.of());
+    assertEquals("""
+        {"name": "a \\"quoted\\" \\\\ name", "score": 12.5, "error": null, "infinite": null, \
+        "vectorized": true, "stripMined": null, "params": {"size": 1024}, "empty": {}}""",
+        JitDiagnostics.toJSON(map));
+  }
+
+  @Test
+  public void toJSONUnsupported() {
+    assertThrows(IllegalArgumentException.class, () -> JitDiagnostics.toJSON(new Object()));
+  }
+}
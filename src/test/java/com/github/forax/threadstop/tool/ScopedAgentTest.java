@@ -0,0 +1,159 @@
+package com.github.forax.threadstop.tool;
+
+import com.github.forax.threadstop.tool.ScopedClassRewriterTest.WithScoped;
+import com.github.forax.threadstop.tool.ScopedClassRewriterTest.WithoutScoped;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import static com.github.forax.threadstop.tool.ScopedClassRewriterTest.bytecode;
+import static com.github.forax.threadstop.tool.ScopedClassRewriterTest.hasJdkScoped;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public final class ScopedAgentTest {
+  private static final String CLASS_NAME = "com/github/forax/threadstop/tool/ScopedClassRewriterTest$WithScoped";
+
+  private static boolean isPosix(Path path) {
+    return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+  }
+
+  private static Path entryFile(Path cacheDirectory, byte[] bytecode) {
+    return cacheDirectory.resolve(ScopedClassRewriter.hash(bytecode) + ".class");
+  }
+
+  private static byte[] entry(byte[] bytecode, byte[] newBytecode) {
+    var header = ScopedClassRewriter.hash(bytecode) + " " + ScopedClassRewriter.hash(newBytecode) + "\n";
+    var headerBytes = header.getBytes(StandardCharsets.US_ASCII);
+    var entry = Arrays.copyOf(headerBytes, headerBytes.length + newBytecode.length);
+    System.arraycopy(newBytecode, 0, entry, headerBytes.length, newBytecode.length);
+    return entry;
+  }
+
+  @Test
+  public void privateDirectory(@TempDir Path dir) throws IOException {
+    var cacheDirectory = dir.resolve("cache/scoped-agent");
+    assertTrue(ScopedAgent.privateDirectory(cacheDirectory));
+    assertTrue(Files.isDirectory(cacheDirectory));
+    if (isPosix(cacheDirectory)) {
+      assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(cacheDirectory));
+    }
+    try(var files = Files.list(cacheDirectory)) {
+      assertEquals(0, files.count());  // the probe file is deleted
+    }
+  }
+
+  @Test
+  public void privateDirectoryWritableByOthers(@TempDir Path dir) throws IOException {
+    assumeTrue(isPosix(dir));
+    var cacheDirectory = Files.createDirectory(dir.resolve("cache"));
+    Files.setPosixFilePermissions(cacheDirectory, PosixFilePermissions.fromString("rwxrwxrwx"));
+    assertFalse(ScopedAgent.privateDirectory(cacheDirectory));
+  }
+
+  @Test
+  public void privateDirectoryNotADirectory(@TempDir Path dir) throws IOException {
+    var file = Files.createFile(dir.resolve("cache"));
+    assertFalse(ScopedAgent.privateDirectory(file));
+  }
+
+  @Test
+  public void transformWithoutCache() throws IOException {
+    var newBytecode = ScopedAgent.transform(null, CLASS_NAME, bytecode(WithScoped.class));
+    assertAll(
+        () -> assertTrue(hasJdkScoped(newBytecode, "scoped")),
+        () -> assertNull(ScopedAgent.transform(null, CLASS_NAME, bytecode(WithoutScoped.class))),
+        () -> assertNull(ScopedAgent.transform(null, CLASS_NAME, newBytecode))
+    );
+  }
+
+  @Test
+  public void transformWithCache(@TempDir Path cacheDirectory) throws IOException {
+    var bytecode = bytecode(WithScoped.class);
+    var newBytecode = ScopedAgent.transform(cacheDirectory, CLASS_NAME, bytecode);
+    var entryFile = entryFile(cacheDirectory, bytecode);
+    assertAll(
+        () -> assertTrue(hasJdkScoped(newBytecode, "scoped")),
+        () -> assertArrayEquals(newBytecode, ScopedAgent.readEntry(entryFile, ScopedClassRewriter.hash(bytecode))),
+        () -> assertArrayEquals(newBytecode, ScopedAgent.transform(cacheDirectory, CLASS_NAME, bytecode))
+    );
+  }
+
+  @Test
+  public void transformWithoutScopedIsNotCached(@TempDir Path cacheDirectory) throws IOException {
+    assertNull(ScopedAgent.transform(cacheDirectory, CLASS_NAME, bytecode(WithoutScoped.class)));
+    try(var files = Files.list(cacheDirectory)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  public void validEntryIsUsed(@TempDir Path cacheDirectory) throws IOException {
+    var bytecode = bytecode(WithScoped.class);
+    var cached = "cached bytecode".getBytes(StandardCharsets.US_ASCII);
+    Files.write(entryFile(cacheDirectory, bytecode), entry(bytecode, cached));
+    assertArrayEquals(cached, ScopedAgent.transform(cacheDirectory, CLASS_NAME, bytecode));
+  }
+
+  @Test
+  public void truncatedEntryIsRewritten(@TempDir Path cacheDirectory) throws IOException {
+    var bytecode = bytecode(WithScoped.class);
+    var entryFile = entryFile(cacheDirectory, bytecode);
+    var entry = entry(bytecode, ScopedClassRewriter.transform(bytecode));
+    Files.write(entryFile, Arrays.copyOf(entry, 100));  // in the middle of the header
+    assertNull(ScopedAgent.readEntry(entryFile, ScopedClassRewriter.hash(bytecode)));
+
+    var newBytecode = ScopedAgent.transform(cacheDirectory, CLASS_NAME, bytecode);
+    assertAll(
+        () -> assertTrue(hasJdkScoped(newBytecode, "scoped")),
+        () -> assertArrayEquals(entry, Files.readAllBytes(entryFile))
+    );
+  }
+
+  @Test
+  public void corruptedEntryIsRewritten(@TempDir Path cacheDirectory) throws IOException {
+    var bytecode = bytecode(WithScoped.class);
+    var entryFile = entryFile(cacheDirectory, bytecode);
+    var entry = entry(bytecode, ScopedClassRewriter.transform(bytecode));
+    var corrupted = entry.clone();
+    corrupted[corrupted.length - 1] ^= 1;
+    Files.write(entryFile, corrupted);
+    assertNull(ScopedAgent.readEntry(entryFile, ScopedClassRewriter.hash(bytecode)));
+
+    var newBytecode = ScopedAgent.transform(cacheDirectory, CLASS_NAME, bytecode);
+    assertAll(
+        () -> assertTrue(hasJdkScoped(newBytecode, "scoped")),
+        () -> assertArrayEquals(entry, Files.readAllBytes(entryFile))
+    );
+  }
+
+  @Test
+  public void entryOfAnotherClassIsRewritten(@TempDir Path cacheDirectory) throws IOException {
+    var bytecode = bytecode(WithScoped.class);
+    var otherBytecode = bytecode(WithoutScoped.class);
+    var entryFile = entryFile(cacheDirectory, bytecode);
+    Files.write(entryFile, entry(otherBytecode, otherBytecode));
+    assertNull(ScopedAgent.readEntry(entryFile, ScopedClassRewriter.hash(bytecode)));
+    assertTrue(hasJdkScoped(ScopedAgent.transform(cacheDirectory, CLASS_NAME, bytecode), "scoped"));
+  }
+
+  @Test
+  public void invalidClassIsLoadedUnchanged(@TempDir Path cacheDirectory) throws IOException {
+    // contains the name of the annotation but is not a class
+    var bytecode = "Lcom/github/forax/threadstop/Scoped;".getBytes(StandardCharsets.UTF_8);
+    assertAll(
+        () -> assertNull(ScopedAgent.transform(null, "Invalid", bytecode)),
+        () -> assertNull(ScopedAgent.transform(cacheDirectory, "Invalid", bytecode))
+    );
+    try(var files = Files.list(cacheDirectory)) {
+      assertEquals(0, files.count());
+    }
+  }
+}
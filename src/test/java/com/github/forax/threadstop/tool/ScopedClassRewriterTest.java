@@ -0,0 +1,135 @@
+package com.github.forax.threadstop.tool;
+
+import com.github.forax.threadstop.Scoped;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.classfile.ClassFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ScopedClassRewriterTest {
+  private static final String JDK_SCOPED = "Ljdk/internal/misc/ScopeMemoryAccess$Scoped;";
+
+  // the test classes are not rewritten by the build, the rewriting is done by the tests
+  public static final class WithScoped {
+    private int value;
+
+    @Scoped
+    public void scoped(int value) {
+      this.value = value;
+    }
+
+    public int notScoped() {
+      return value;
+    }
+  }
+
+  public static final class WithoutScoped {
+    public int value() {
+      return 42;
+    }
+  }
+
+  static byte[] bytecode(Class<?> type) throws IOException {
+    var name = type.getName().substring(type.getPackageName().length() + 1) + ".class";
+    try(var input = type.getResourceAsStream(name)) {
+      return input.readAllBytes();
+    }
+  }
+
+  static boolean hasJdkScoped(byte[] bytecode, String methodName) {
+    var classModel = ClassFile.of().parse(bytecode);
+    return classModel.methods().stream()
+        .filter(methodModel -> methodModel.methodName().equalsString(methodName))
+        .anyMatch(methodModel -> ScopedClassRewriter.isAnnotated(methodModel, JDK_SCOPED));
+  }
+
+  // records the name of the classes given to the transform
+  private static UnaryOperator<byte[]> recordingTransform(Set<String> transformed) {
+    return bytecode -> {
+      transformed.add(ClassFile.of().parse(bytecode).thisClass().asInternalName());
+      return ScopedClassRewriter.transform(bytecode);
+    };
+  }
+
+  @Test
+  public void transform() throws IOException {
+    var bytecode = ScopedClassRewriter.transform(bytecode(WithScoped.class));
+    assertNotNull(bytecode);
+    assertAll(
+        () -> assertTrue(hasJdkScoped(bytecode, "scoped")),
+        () -> assertFalse(hasJdkScoped(bytecode, "notScoped"))
+    );
+  }
+
+  @Test
+  public void transformWithoutScoped() throws IOException {
+    assertNull(ScopedClassRewriter.transform(bytecode(WithoutScoped.class)));
+  }
+
+  @Test
+  public void transformIsIdempotent() throws IOException {
+    var bytecode = ScopedClassRewriter.transform(bytecode(WithScoped.class));
+    assertNull(ScopedClassRewriter.transform(bytecode));
+  }
+
+  @Test
+  public void rewriteDirectory(@TempDir Path dir) throws IOException {
+    var classes = Files.createDirectories(dir.resolve("classes/com/example"));
+    var withScoped = classes.resolve("WithScoped.class");
+    var withoutScoped = classes.resolve("WithoutScoped.class");
+    Files.write(withScoped, bytecode(WithScoped.class));
+    Files.write(withoutScoped, bytecode(WithoutScoped.class));
+    var cacheFile = dir.resolve("scoped-rewriter.cache");
+    var transformed = ConcurrentHashMap.<String>newKeySet();
+
+    ScopedClassRewriter.rewriteDirectory(dir.resolve("classes"), cacheFile, recordingTransform(transformed));
+    assertAll(
+        () -> assertEquals(2, transformed.size()),
+        () -> assertTrue(hasJdkScoped(Files.readAllBytes(withScoped), "scoped")),
+        () -> assertArrayEquals(bytecode(WithoutScoped.class), Files.readAllBytes(withoutScoped)),
+        () -> assertTrue(Files.exists(cacheFile))
+    );
+  }
+
+  @Test
+  public void rewriteDirectoryUnchangedClassesAreSkipped(@TempDir Path dir) throws IOException {
+    var classes = Files.createDirectories(dir.resolve("classes"));
+    Files.write(classes.resolve("WithScoped.class"), bytecode(WithScoped.class));
+    Files.write(classes.resolve("WithoutScoped.class"), bytecode(WithoutScoped.class));
+    var cacheFile = dir.resolve("scoped-rewriter.cache");
+    ScopedClassRewriter.rewriteDirectory(classes, cacheFile, ScopedClassRewriter::transform);
+
+    // the hashes of the rewritten class and of the unchanged class are in the cache
+    var transformed = ConcurrentHashMap.<String>newKeySet();
+    ScopedClassRewriter.rewriteDirectory(classes, cacheFile, recordingTransform(transformed));
+    assertEquals(Set.of(), transformed);
+  }
+
+  @Test
+  public void rewriteDirectoryModifiedClassIsRewritten(@TempDir Path dir) throws IOException {
+    var classes = Files.createDirectories(dir.resolve("classes"));
+    var withScoped = classes.resolve("WithScoped.class");
+    Files.write(withScoped, bytecode(WithScoped.class));
+    Files.write(classes.resolve("WithoutScoped.class"), bytecode(WithoutScoped.class));
+    var cacheFile = dir.resolve("scoped-rewriter.cache");
+    ScopedClassRewriter.rewriteDirectory(classes, cacheFile, ScopedClassRewriter::transform);
+
+    // the class is recompiled, its hash is not in the cache anymore
+    Files.write(withScoped, bytecode(WithScoped.class));
+    var transformed = ConcurrentHashMap.<String>newKeySet();
+    ScopedClassRewriter.rewriteDirectory(classes, cacheFile, recordingTransform(transformed));
+    assertAll(
+        () -> assertEquals(Set.of(WithScoped.class.getName().replace('.', '/')), transformed),
+        () -> assertTrue(hasJdkScoped(Files.readAllBytes(withScoped), "scoped"))
+    );
+  }
+}
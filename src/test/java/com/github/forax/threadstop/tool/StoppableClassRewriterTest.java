@@ -0,0 +1,175 @@
+package com.github.forax.threadstop.tool;
+
+import com.github.forax.threadstop.StopToken;
+import com.github.forax.threadstop.Stoppable;
+import com.github.forax.threadstop.Stoppables;
+import com.github.forax.threadstop.StoppedException;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.instruction.InvokeInstruction;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class StoppableClassRewriterTest {
+  // the test classes are not rewritten by the build, the rewriting is done by the tests
+  public static final class Loops {
+    @Stoppable
+    public static int forLoop(int n) {
+      var sum = 0;
+      for(var i = 0; i < n; i++) {
+        sum += i;
+      }
+      return sum;
+    }
+
+    @Stoppable
+    public static int whileLoop(int n) {
+      var i = 0;
+      while(i < n) {
+        i++;
+      }
+      return i;
+    }
+
+    @Stoppable
+    public static long nestedLoop(int n) {
+      var sum = 0L;
+      for(var i = 0; i < n; i++) {
+        for(var j = 0; j < n; j++) {
+          sum += i ^ j;
+        }
+      }
+      return sum;
+    }
+
+    @Stoppable
+    public static int noLoop(int n) {
+      return n;
+    }
+
+    public static int notAnnotated(int n) {
+      var sum = 0;
+      for(var i = 0; i < n; i++) {
+        sum += i;
+      }
+      return sum;
+    }
+  }
+
+  private static byte[] loopsBytecode() throws IOException {
+    try(var input = StoppableClassRewriterTest.class.getResourceAsStream("StoppableClassRewriterTest$Loops.class")) {
+      return input.readAllBytes();
+    }
+  }
+
+  // defines the class in a new class loader, so the class is verified by the VM
+  private static Class<?> define(byte[] bytecode) {
+    var loader = new ClassLoader(StoppableClassRewriterTest.class.getClassLoader()) {
+      Class<?> define() {
+        return defineClass(null, bytecode, 0, bytecode.length);
+      }
+    };
+    return loader.define();
+  }
+
+  private static MethodHandle method(Class<?> type, String name) throws ReflectiveOperationException {
+    var returnType = name.equals("nestedLoop") ? long.class : int.class;
+    return MethodHandles.publicLookup().findStatic(type, name, MethodType.methodType(returnType, int.class));
+  }
+
+  private static Object invoke(MethodHandle method, int n) {
+    try {
+      return method.invoke(n);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static long countIsAliveChecks(byte[] bytecode, String methodName) {
+    var classModel = ClassFile.of().parse(bytecode);
+    return classModel.methods().stream()
+        .filter(methodModel -> methodModel.methodName().equalsString(methodName))
+        .flatMap(methodModel -> methodModel.code().orElseThrow().elementStream())
+        .filter(element -> element instanceof InvokeInstruction invoke && invoke.name().equalsString("isAlive"))
+        .count();
+  }
+
+  @Test
+  public void oneCheckPerLoop() throws IOException {
+    var bytecode = StoppableClassRewriter.transform(loopsBytecode());
+    assertNotNull(bytecode);
+    assertAll(
+        () -> assertEquals(1, countIsAliveChecks(bytecode, "forLoop")),
+        () -> assertEquals(1, countIsAliveChecks(bytecode, "whileLoop")),
+        () -> assertEquals(2, countIsAliveChecks(bytecode, "nestedLoop")),
+        () -> assertEquals(0, countIsAliveChecks(bytecode, "noLoop")),
+        () -> assertEquals(0, countIsAliveChecks(bytecode, "notAnnotated"))
+    );
+  }
+
+  @Test
+  public void transformIsIdempotent() throws IOException {
+    var bytecode = StoppableClassRewriter.transform(loopsBytecode());
+    assertNull(StoppableClassRewriter.transform(bytecode));
+  }
+
+  @Test
+  public void rewrittenLoopsNotStopped() throws IOException, ReflectiveOperationException {
+    var loops = define(StoppableClassRewriter.transform(loopsBytecode()));
+    var forLoop = method(loops, "forLoop");
+    var whileLoop = method(loops, "whileLoop");
+    var nestedLoop = method(loops, "nestedLoop");
+    var token = StopToken.ofArena();
+    assertAll(
+        // no token bound
+        () -> assertEquals(45, invoke(forLoop, 10)),
+        () -> assertEquals(10, invoke(whileLoop, 10)),
+        () -> assertEquals(Loops.nestedLoop(10), invoke(nestedLoop, 10)),
+        // a token bound but not stopped
+        () -> assertEquals(45, Stoppables.call(token, () -> invoke(forLoop, 10))),
+        () -> assertEquals(10, Stoppables.call(token, () -> invoke(whileLoop, 10))),
+        () -> assertEquals(Loops.nestedLoop(10), Stoppables.call(token, () -> invoke(nestedLoop, 10)))
+    );
+  }
+
+  @Test
+  public void rewrittenLoopsStopped() throws IOException, ReflectiveOperationException {
+    var loops = define(StoppableClassRewriter.transform(loopsBytecode()));
+    var forLoop = method(loops, "forLoop");
+    var whileLoop = method(loops, "whileLoop");
+    var nestedLoop = method(loops, "nestedLoop");
+    var noLoop = method(loops, "noLoop");
+    var token = StopToken.ofArena();
+    token.requestStop();
+    assertAll(
+        () -> assertThrows(StoppedException.class, () -> Stoppables.call(token, () -> invoke(forLoop, 10))),
+        () -> assertThrows(StoppedException.class, () -> Stoppables.call(token, () -> invoke(whileLoop, 10))),
+        () -> assertThrows(StoppedException.class, () -> Stoppables.call(token, () -> invoke(nestedLoop, 10))),
+        () -> assertEquals(10, Stoppables.call(token, () -> invoke(noLoop, 10)))
+    );
+  }
+
+  @Test
+  public void stopRunningNestedLoop() throws IOException, ReflectiveOperationException, InterruptedException {
+    var nestedLoop = method(define(StoppableClassRewriter.transform(loopsBytecode())), "nestedLoop");
+    var token = StopToken.ofArena();
+    try(var executor = Executors.newSingleThreadExecutor()) {
+      // 10^10 iterations, far longer than the test
+      var future = executor.submit(() -> Stoppables.call(token, () -> invoke(nestedLoop, 100_000)));
+      Thread.sleep(10);
+      token.requestStop();
+      var e = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(StoppedException.class, e.getCause());
+    }
+  }
+}